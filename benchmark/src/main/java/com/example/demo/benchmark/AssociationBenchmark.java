@@ -0,0 +1,91 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.entity.User;
+import com.example.demo.mapper.UserMapper;
+import com.example.demo.utils.SqlSessionFactoryUtil;
+import org.apache.ibatis.session.SqlSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 关联加载：嵌套结果JOIN映射与延迟加载嵌套查询对比
+ * 每次调用前清空所有二级缓存，并访问每个用户的关联对象以触发延迟加载
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AssociationBenchmark {
+    @Param({"1000"})
+    public int rows;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkDatabase.init(rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkDatabase.shutdown();
+    }
+
+    @Setup(Level.Invocation)
+    public void clearCache() {
+        BenchmarkDatabase.clearSecondLevelCaches();
+    }
+
+    @Benchmark
+    public void joinDepartment(Blackhole blackhole) {
+        try (SqlSession sqlSession = SqlSessionFactoryUtil.getSqlSessionFactory().openSession()) {
+            List<User> users = sqlSession.getMapper(UserMapper.class).selectAllWithDepartment();
+            for (User user : users) {
+                blackhole.consume(user.getDepartment());
+            }
+        }
+    }
+
+    @Benchmark
+    public void lazyDepartment(Blackhole blackhole) {
+        try (SqlSession sqlSession = SqlSessionFactoryUtil.getSqlSessionFactory().openSession()) {
+            List<User> users = sqlSession.getMapper(UserMapper.class).selectAllWithLazyDepartmentAndOrders();
+            for (User user : users) {
+                blackhole.consume(user.getDepartment());
+            }
+        }
+    }
+
+    @Benchmark
+    public void lazyDepartmentAndOrders(Blackhole blackhole) {
+        try (SqlSession sqlSession = SqlSessionFactoryUtil.getSqlSessionFactory().openSession()) {
+            List<User> users = sqlSession.getMapper(UserMapper.class).selectAllWithLazyDepartmentAndOrders();
+            for (User user : users) {
+                blackhole.consume(user.getDepartment());
+                blackhole.consume(user.getOrders());
+            }
+        }
+    }
+
+    @Benchmark
+    public void lazyUntouched(Blackhole blackhole) {
+        try (SqlSession sqlSession = SqlSessionFactoryUtil.getSqlSessionFactory().openSession()) {
+            blackhole.consume(sqlSession.getMapper(UserMapper.class).selectAllWithLazyDepartmentAndOrders());
+        }
+    }
+}
\ No newline at end of file
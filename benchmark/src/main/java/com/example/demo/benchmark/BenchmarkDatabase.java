@@ -0,0 +1,131 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.utils.SqlSessionFactoryUtil;
+import net.sf.ehcache.CacheManager;
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.session.Configuration;
+import org.h2.tools.RunScript;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 基准测试使用的嵌入式数据库
+ * H2以MySQL兼容模式运行，通过系统属性让项目的mybatis-config.xml连接到它
+ */
+public class BenchmarkDatabase {
+    public static final int DEPARTMENTS = 10;
+    public static final int ORDERS_PER_USER = 3;
+
+    private static final String URL = "jdbc:h2:mem:benchmark;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1";
+    private static final int INSERT_BATCH = 1000;
+
+    private static int seededUsers = -1;
+
+    private BenchmarkDatabase() {}
+
+    /**
+     * 建表并写入指定数量的用户（每个用户3个订单），同一JVM内只初始化一次
+     */
+    public static synchronized void init(int users) throws Exception {
+        if (seededUsers == users) {
+            return;
+        }
+        System.setProperty("jdbc.driver", "org.h2.Driver");
+        System.setProperty("jdbc.url", URL);
+        System.setProperty("jdbc.username", "sa");
+        System.setProperty("jdbc.password", "");
+        try (Connection connection = openConnection()) {
+            try (Reader schema = new InputStreamReader(
+                    BenchmarkDatabase.class.getResourceAsStream("/schema-h2.sql"), StandardCharsets.UTF_8)) {
+                RunScript.execute(connection, schema);
+            }
+            seed(connection, users);
+        }
+        seededUsers = users;
+        clearSecondLevelCaches();
+    }
+
+    /**
+     * 关闭Ehcache的CacheManager，否则其非守护线程会让JMH分叉的JVM等待超时后才退出
+     */
+    public static synchronized void shutdown() {
+        CacheManager.getInstance().shutdown();
+        seededUsers = -1;
+    }
+
+    public static Connection openConnection() throws SQLException {
+        return DriverManager.getConnection(URL, "sa", "");
+    }
+
+    /**
+     * 删除ID大于maxUserId的用户，恢复到初始数据量
+     */
+    public static void truncateUsersAfter(long maxUserId) throws SQLException {
+        try (Connection connection = openConnection(); Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DELETE FROM user WHERE id > " + maxUserId);
+        }
+    }
+
+    public static void clearSecondLevelCaches() {
+        Configuration configuration = SqlSessionFactoryUtil.getSqlSessionFactory().getConfiguration();
+        for (Cache cache : configuration.getCaches()) {
+            cache.clear();
+        }
+    }
+
+    public static void clearSecondLevelCache(String namespace) {
+        SqlSessionFactoryUtil.getSqlSessionFactory().getConfiguration().getCache(namespace).clear();
+    }
+
+    private static void seed(Connection connection, int users) throws SQLException {
+        connection.setAutoCommit(false);
+        try (PreparedStatement department = connection.prepareStatement(
+                "INSERT INTO department (name, description) VALUES (?, ?)")) {
+            for (int i = 1; i <= DEPARTMENTS; i++) {
+                department.setString(1, "部门" + i);
+                department.setString(2, "基准测试部门" + i);
+                department.addBatch();
+            }
+            department.executeBatch();
+        }
+        try (PreparedStatement user = connection.prepareStatement(
+                "INSERT INTO user (name, email, age, department_id) VALUES (?, ?, ?, ?)")) {
+            for (int i = 1; i <= users; i++) {
+                user.setString(1, "用户" + i);
+                user.setString(2, "user" + i + "@example.com");
+                user.setInt(3, 20 + i % 40);
+                user.setLong(4, 1 + i % DEPARTMENTS);
+                user.addBatch();
+                if (i % INSERT_BATCH == 0) {
+                    user.executeBatch();
+                }
+            }
+            user.executeBatch();
+        }
+        try (PreparedStatement order = connection.prepareStatement(
+                "INSERT INTO orders (order_no, amount, user_id) VALUES (?, ?, ?)")) {
+            int count = 0;
+            for (int i = 1; i <= users; i++) {
+                for (int j = 1; j <= ORDERS_PER_USER; j++) {
+                    order.setString(1, "ORD" + i + "-" + j);
+                    order.setBigDecimal(2, BigDecimal.valueOf(100 + j * 50L));
+                    order.setLong(3, i);
+                    order.addBatch();
+                    if (++count % INSERT_BATCH == 0) {
+                        order.executeBatch();
+                    }
+                }
+            }
+            order.executeBatch();
+        }
+        connection.commit();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,70 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.entity.User;
+import com.example.demo.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 二级缓存：命中与未命中对比（UserService.getUserById）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheBenchmark {
+    private static final String USER_NAMESPACE = "com.example.demo.mapper.UserMapper";
+
+    @State(Scope.Benchmark)
+    public static class Database {
+        @Param({"10000"})
+        public int rows;
+
+        final UserService userService = new UserService();
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            BenchmarkDatabase.init(rows);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            BenchmarkDatabase.shutdown();
+        }
+    }
+
+    /**
+     * 每次调用前清空缓存，保证未命中
+     */
+    @State(Scope.Thread)
+    public static class ColdCache {
+        @Setup(Level.Invocation)
+        public void clearCache() {
+            BenchmarkDatabase.clearSecondLevelCache(USER_NAMESPACE);
+        }
+    }
+
+    @Benchmark
+    public User cacheHit(Database database) {
+        return database.userService.getUserById(1L);
+    }
+
+    @Benchmark
+    public User cacheMiss(Database database, ColdCache coldCache) {
+        return database.userService.getUserById(1L);
+    }
+}
\ No newline at end of file
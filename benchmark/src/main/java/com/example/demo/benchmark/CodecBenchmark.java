@@ -0,0 +1,88 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.cache.CacheCodec;
+import com.example.demo.cache.EntityCodec;
+import com.example.demo.cache.JavaSerializationCodec;
+import com.example.demo.entity.Department;
+import com.example.demo.entity.Order;
+import com.example.demo.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存编解码：EntityCodec与Java序列化对比
+ * 数据为 selectAllWithDepartmentAndOrders 形状的用户列表，包含 部门.users 和 订单.user 的循环引用；
+ * 100个用户编码后EntityCodec约12.7KB，Java序列化约42.2KB（见README）。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CodecBenchmark {
+    @Param({"entity", "java"})
+    public String codecType;
+
+    @Param({"100"})
+    public int users;
+
+    private CacheCodec codec;
+    private List<User> value;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        codec = "entity".equals(codecType) ? new EntityCodec() : new JavaSerializationCodec();
+        value = createUsers(users);
+        encoded = codec.encode(value);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return codec.encode(value);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return codec.decode(encoded);
+    }
+
+    private static List<User> createUsers(int count) {
+        List<Department> departments = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            departments.add(new Department((long) i, "部门" + i, "部门描述" + i, new Date(), new ArrayList<>()));
+        }
+        List<User> result = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            Department department = departments.get(i % departments.size());
+            User user = new User((long) i, "用户" + i, "user" + i + "@example.com", 20 + i % 40, department.getId());
+            user.setDepartment(department);
+            department.getUsers().add(user);
+            List<Order> orders = new ArrayList<>();
+            for (int k = 0; k < 3; k++) {
+                orders.add(new Order((long) i * 10 + k, "ORD" + i + "-" + k, new BigDecimal("199.99"), (long) i,
+                        new Date(), user));
+            }
+            user.setOrders(orders);
+            result.add(user);
+        }
+        return result;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,84 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.entity.User;
+import com.example.demo.service.UserService;
+import com.example.demo.utils.BatchParam;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 写入：逐条插入（每条一个事务）与批量插入对比，每次调用写入batchSize个用户
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InsertBenchmark {
+    @Param({"1000"})
+    public int rows;
+
+    @Param({"100"})
+    public int batchSize;
+
+    private UserService userService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkDatabase.init(rows);
+        userService = new UserService();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkDatabase.shutdown();
+    }
+
+    @TearDown(Level.Iteration)
+    public void removeInserted() throws Exception {
+        BenchmarkDatabase.truncateUsersAfter(rows);
+    }
+
+    @Benchmark
+    public int singleInserts() {
+        int inserted = 0;
+        for (User user : newUsers()) {
+            inserted += userService.createUser(user);
+        }
+        return inserted;
+    }
+
+    @Benchmark
+    public int multiValuesInsert() {
+        return userService.createUsers(newUsers());
+    }
+
+    @Benchmark
+    public int batchExecutorInsert() {
+        return userService.createUsers(newUsers(), new BatchParam(batchSize, true, true));
+    }
+
+    private List<User> newUsers() {
+        List<User> users = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            users.add(new User(null, "基准用户" + i, "bench" + i + "@example.com", 30, 1L));
+        }
+        return users;
+    }
+}
\ No newline at end of file
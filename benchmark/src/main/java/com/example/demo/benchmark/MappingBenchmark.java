@@ -0,0 +1,83 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.mapper.OrderMapper;
+import com.example.demo.mapper.UserMapper;
+import com.example.demo.plugin.CompiledResultMapInterceptor;
+import com.example.demo.utils.SqlSessionFactoryUtil;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.session.SqlSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 结果映射：编译后的映射器（compiled）与MyBatis反射映射（reflective）对比
+ * 分别覆盖简单resultMap、association和collection；每次调用前清空所有二级缓存
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBenchmark {
+    @Param({"10000"})
+    public int rows;
+
+    @Param({"compiled", "reflective"})
+    public String mapper;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkDatabase.init(rows);
+        for (Interceptor interceptor : SqlSessionFactoryUtil.getSqlSessionFactory().getConfiguration().getInterceptors()) {
+            if (interceptor instanceof CompiledResultMapInterceptor) {
+                ((CompiledResultMapInterceptor) interceptor).setEnabled("compiled".equals(mapper));
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkDatabase.shutdown();
+    }
+
+    @Setup(Level.Invocation)
+    public void clearCache() {
+        BenchmarkDatabase.clearSecondLevelCaches();
+    }
+
+    @Benchmark
+    public void simple(Blackhole blackhole) {
+        try (SqlSession sqlSession = SqlSessionFactoryUtil.getSqlSessionFactory().openSession()) {
+            blackhole.consume(sqlSession.getMapper(UserMapper.class).selectAll());
+        }
+    }
+
+    @Benchmark
+    public void association(Blackhole blackhole) {
+        try (SqlSession sqlSession = SqlSessionFactoryUtil.getSqlSessionFactory().openSession()) {
+            blackhole.consume(sqlSession.getMapper(OrderMapper.class).selectAllWithUser());
+        }
+    }
+
+    @Benchmark
+    public void collection(Blackhole blackhole) {
+        try (SqlSession sqlSession = SqlSessionFactoryUtil.getSqlSessionFactory().openSession()) {
+            blackhole.consume(sqlSession.getMapper(UserMapper.class).selectAllWithOrders());
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,80 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.entity.User;
+import com.example.demo.service.UserService;
+import com.example.demo.utils.Page;
+import com.example.demo.utils.PageParam;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分页查询：浅分页、深分页（OFFSET）与游标分页对比
+ * 每次调用前清空UserMapper的二级缓存，测量的是数据库查询
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaginationBenchmark {
+    private static final String USER_NAMESPACE = "com.example.demo.mapper.UserMapper";
+
+    @Param({"10000"})
+    public int rows;
+
+    @Param({"20"})
+    public int pageSize;
+
+    private UserService userService;
+    private int deepPageNum;
+    private long deepLastId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkDatabase.init(rows);
+        userService = new UserService();
+        deepPageNum = rows / pageSize - 1;
+        deepLastId = (long) (deepPageNum - 1) * pageSize;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkDatabase.shutdown();
+    }
+
+    @Setup(Level.Invocation)
+    public void clearCache() {
+        BenchmarkDatabase.clearSecondLevelCache(USER_NAMESPACE);
+    }
+
+    @Benchmark
+    public Page<User> shallowOffset() {
+        return userService.getUsersByPage(new PageParam(1, pageSize));
+    }
+
+    @Benchmark
+    public Page<User> deepOffset() {
+        return userService.getUsersByPage(new PageParam(deepPageNum, pageSize));
+    }
+
+    @Benchmark
+    public Page<User> deepCursor() {
+        PageParam pageParam = new PageParam(1, pageSize);
+        pageParam.setLastId(deepLastId);
+        return userService.getUsersByCursor(pageParam);
+    }
+}
\ No newline at end of file
@@ -1,12 +1,22 @@
 package com.example.demo;
 
+import com.example.demo.entity.Department;
+import com.example.demo.entity.Order;
 import com.example.demo.entity.User;
+import com.example.demo.monitor.StatementMetrics;
+import com.example.demo.monitor.StatementSnapshot;
 import com.example.demo.service.CacheService;
+import com.example.demo.service.DepartmentService;
+import com.example.demo.service.OrderService;
 import com.example.demo.service.UserService;
 import com.example.demo.utils.Page;
 import com.example.demo.utils.PageParam;
+import com.example.demo.utils.UnitOfWork;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import net.sf.ehcache.CacheManager;
 
 
@@ -18,9 +28,18 @@ public class DemoApplication {
             // 测试分页功能
             testPagination();
 
+            // 测试异步查询
+            testAsync();
+
+            // 测试工作单元
+            testUnitOfWork();
+
             // 测试缓存功能
             testCache();
 
+            // 输出语句耗时统计
+            printStatementMetrics();
+
             System.out.println("\n=== 程序执行完成 ===");
         } finally {
             // 关闭所有资源，确保程序能正常退出
@@ -36,11 +55,12 @@ public class DemoApplication {
 
         UserService userService = new UserService();
 
-        // 创建一些测试数据
+        // 创建一些测试数据（一次会话、一次提交批量写入）
+        List<User> testUsers = new ArrayList<>();
         for (int i = 1; i <= 15; i++) {
-            User user = new User(null, "用户" + i, "user" + i + "@example.com", 20 + i, null);
-            userService.createUser(user);
+            testUsers.add(new User(null, "用户" + i, "user" + i + "@example.com", 20 + i, null));
         }
+        userService.createUsers(testUsers);
 
         // 测试分页查询
         System.out.println("第一页数据（每页5条）：");
@@ -62,14 +82,67 @@ public class DemoApplication {
         Page<User> page3 = userService.getUsersByPage(pageParam3);
         page3.getData().forEach(System.out::println);
 
-        // 清理测试数据
+        // 测试游标分页：按上一页返回的游标继续查询
+        System.out.println("\n游标分页（每页5条）：");
+        String cursor = null;
+        do {
+            Page<User> cursorPage = userService.getUsersByCursor(PageParam.ofCursor(cursor, 5));
+            cursorPage.getData().forEach(System.out::println);
+            cursor = cursorPage.getNextCursor();
+        } while (cursor != null);
+
+        // 清理测试数据（批量写入已回填ID，一条 IN (...) 删除、一次提交）
         System.out.println("\n清理测试数据...");
-        List<User> allUsers = userService.getAllUsers();
-        allUsers.forEach(user -> {
-            if (user.getName().startsWith("用户")) {
-                userService.deleteUser(user.getId());
-            }
-        });
+        List<Long> testUserIds = new ArrayList<>();
+        testUsers.forEach(user -> testUserIds.add(user.getId()));
+        System.out.println("删除用户数：" + userService.deleteUsers(testUserIds));
+    }
+
+    /**
+     * 测试异步查询：相互独立的查询同时执行，有依赖的查询在前一步完成后开始
+     */
+    private static void testAsync() {
+        System.out.println("\n=== 测试异步查询 ===");
+
+        UserService userService = new UserService();
+        DepartmentService departmentService = new DepartmentService();
+        OrderService orderService = new OrderService();
+
+        Long userId = 1L;
+        CompletableFuture<User> userFuture = userService.getUserByIdAsync(userId);
+        // 订单只依赖用户ID，与用户查询同时进行；部门需要用户的部门ID，在用户查询完成后开始
+        CompletableFuture<List<Order>> ordersFuture = orderService.getOrdersByUserIdAsync(userId);
+        CompletableFuture<Department> departmentFuture = userFuture.thenCompose(user ->
+                user == null || user.getDepartmentId() == null
+                        ? CompletableFuture.completedFuture(null)
+                        : departmentService.getDepartmentByIdAsync(user.getDepartmentId()));
+        CompletableFuture.allOf(departmentFuture, ordersFuture).join();
+
+        System.out.println("用户：" + userFuture.join());
+        System.out.println("部门：" + departmentFuture.join());
+        System.out.println("订单数：" + ordersFuture.join().size());
+    }
+
+    private static void testUnitOfWork() {
+        System.out.println("\n=== 测试工作单元 ===");
+
+        UserService userService = new UserService();
+        OrderService orderService = new OrderService();
+
+        // 工作单元内的服务调用共用一个连接和事务，演示结束时回滚，不留下测试数据
+        User user = new User(null, "工作单元用户", "uow@example.com", 30, null);
+        try (UnitOfWork unitOfWork = UnitOfWork.begin()) {
+            userService.createUser(user);
+            Order order = new Order();
+            order.setOrderNo("UOW-" + System.currentTimeMillis());
+            order.setAmount(new BigDecimal("99.00"));
+            order.setUserId(user.getId());
+            orderService.createOrder(order);
+            System.out.println("工作单元内查询：" + userService.getUserById(user.getId())
+                    + "，订单数：" + orderService.getOrdersByUserId(user.getId()).size());
+            unitOfWork.rollback();
+        }
+        System.out.println("回滚后查询：" + userService.getUserById(user.getId()));
     }
 
     /**
@@ -90,6 +163,18 @@ public class DemoApplication {
         cacheService.demonstrateCacheStats();
     }
 
+    /**
+     * 输出各映射语句的耗时统计（同样可通过JMX查看 com.example.demo:type=StatementMetrics）
+     */
+    private static void printStatementMetrics() {
+        System.out.println("\n=== 语句耗时统计（按p99排序） ===");
+        for (StatementSnapshot snapshot : StatementMetrics.snapshot().values()) {
+            System.out.printf("%s 次数=%d 错误=%d 行数=%d p50=%.3fms p99=%.3fms p999=%.3fms 最大=%.3fms%n",
+                    snapshot.getStatementId(), snapshot.getCount(), snapshot.getErrorCount(), snapshot.getRowCount(),
+                    snapshot.getP50Millis(), snapshot.getP99Millis(), snapshot.getP999Millis(), snapshot.getMaxMillis());
+        }
+    }
+
     /**
      * 关闭所有资源，确保程序能正常退出
      */
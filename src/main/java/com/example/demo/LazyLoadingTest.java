@@ -65,7 +65,7 @@ public class LazyLoadingTest {
         List<User> users = userMapper.selectAllWithLazyDepartmentAndOrders();
         logger.info("用户数量: {}", users.size());
 
-        // 遍历用户，访问部门和订单信息
+        // 遍历用户，访问部门和订单信息（第一次触发时由BatchLazyLoadingInterceptor批量加载整个列表的关联）
         logger.info("2. 遍历用户，访问部门和订单信息");
         for (User user : users) {
             logger.info("用户信息: ID={}, 姓名={}", user.getId(), user.getName());
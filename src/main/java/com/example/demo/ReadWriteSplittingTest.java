@@ -0,0 +1,132 @@
+package com.example.demo;
+
+import com.example.demo.datasource.ReadWriteDataSource;
+import com.example.demo.datasource.ReplicaNode;
+import com.example.demo.entity.User;
+import com.example.demo.mapper.UserMapper;
+import com.example.demo.utils.SqlSessionFactoryUtil;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+
+/**
+ * 读写分离测试类
+ * 使用三个嵌入式H2数据库分别作为主库和两个从库，从库中的用户名带有库名后缀，便于看出查询发往哪个库
+ */
+public class ReadWriteSplittingTest {
+    private static final Logger logger = LoggerFactory.getLogger(ReadWriteSplittingTest.class);
+
+    private static final String H2_OPTIONS = ";MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1";
+    private static final String PRIMARY_URL = "jdbc:h2:mem:primary" + H2_OPTIONS;
+    private static final String[] REPLICA_NAMES = {"replica1", "replica2"};
+
+    public static void main(String[] args) throws Exception {
+        createDatabase(PRIMARY_URL, "");
+        StringBuilder replicaUrls = new StringBuilder();
+        for (String name : REPLICA_NAMES) {
+            String url = "jdbc:h2:mem:" + name + H2_OPTIONS;
+            createDatabase(url, "@" + name);
+            // IFEXISTS：数据库关闭后不会被自动重新创建，用于演示故障切换
+            replicaUrls.append(replicaUrls.length() == 0 ? "" : ",").append(url).append(";IFEXISTS=TRUE");
+        }
+
+        // SqlSessionFactoryUtil初始化前设置，覆盖mybatis-config.xml中的默认值
+        System.setProperty("jdbc.driver", "org.h2.Driver");
+        System.setProperty("jdbc.url", PRIMARY_URL);
+        System.setProperty("jdbc.username", "sa");
+        System.setProperty("jdbc.password", "");
+        System.setProperty("jdbc.replica.urls", replicaUrls.toString());
+        System.setProperty("jdbc.replica.healthCheckMillis", "1000");
+        SqlSessionFactory sqlSessionFactory = SqlSessionFactoryUtil.getSqlSessionFactory();
+        ReadWriteDataSource dataSource = (ReadWriteDataSource) sqlSessionFactory.getConfiguration()
+                .getEnvironment().getDataSource();
+
+        testReadsGoToReplicas(sqlSessionFactory);
+        testReadAfterWriteStaysOnPrimary(sqlSessionFactory);
+        testReplicaFailover(sqlSessionFactory, dataSource);
+        logRouting(dataSource);
+        System.exit(0);
+    }
+
+    /**
+     * 测试查询轮流发往从库
+     */
+    private static void testReadsGoToReplicas(SqlSessionFactory sqlSessionFactory) {
+        logger.info("========== 测试查询发往从库 ==========");
+        for (long id = 1; id <= 4; id++) {
+            try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+                User user = sqlSession.getMapper(UserMapper.class).selectById(id);
+                logger.info("用户 {}: {}", id, user.getName());
+            }
+        }
+    }
+
+    /**
+     * 测试事务中写操作之后的查询留在主库
+     */
+    private static void testReadAfterWriteStaysOnPrimary(SqlSessionFactory sqlSessionFactory) {
+        logger.info("========== 测试写后读留在主库 ==========");
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            UserMapper userMapper = sqlSession.getMapper(UserMapper.class);
+            User user = new User(null, "新用户", "new@example.com", 22, 1L);
+            userMapper.insert(user);
+            User inserted = userMapper.selectById(user.getId());
+            logger.info("事务内读取刚插入的用户（主库）: {}", inserted == null ? null : inserted.getName());
+            sqlSession.commit();
+        }
+    }
+
+    /**
+     * 测试从库故障后切换到其他从库
+     */
+    private static void testReplicaFailover(SqlSessionFactory sqlSessionFactory, ReadWriteDataSource dataSource)
+            throws Exception {
+        logger.info("========== 测试从库故障切换 ==========");
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:" + REPLICA_NAMES[0] + H2_OPTIONS,
+                "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("SHUTDOWN");
+        }
+        logger.info("已关闭 {}，健康检查后可用从库数: {}", REPLICA_NAMES[0], dataSource.checkReplicas());
+        for (long id = 5; id <= 6; id++) {
+            try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+                User user = sqlSession.getMapper(UserMapper.class).selectById(id);
+                logger.info("用户 {}: {}", id, user == null ? null : user.getName());
+            }
+        }
+    }
+
+    private static void logRouting(ReadWriteDataSource dataSource) {
+        logger.info("主库语句数: {}", dataSource.getPrimaryStatements());
+        for (ReplicaNode replica : dataSource.getReplicas()) {
+            logger.info("{}", replica);
+        }
+    }
+
+    /**
+     * 创建表并写入测试数据，name后缀用于区分数据库
+     */
+    private static void createDatabase(String url, String suffix) throws Exception {
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Reader schema = Resources.getResourceAsReader("h2/schema.sql");
+             Statement statement = connection.createStatement()) {
+            ScriptRunner runner = new ScriptRunner(connection);
+            runner.setAutoCommit(true);
+            runner.setLogWriter(null);
+            runner.runScript(schema);
+            statement.execute("INSERT INTO department (name, description) VALUES ('技术部', '负责产品研发')");
+            for (int i = 1; i <= 6; i++) {
+                statement.execute("INSERT INTO user (name, email, age, department_id) VALUES ('用户" + i + suffix
+                        + "', 'user" + i + "@example.com', " + (20 + i) + ", 1)");
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,132 @@
+package com.example.demo;
+
+import com.example.demo.entity.Order;
+import com.example.demo.service.ShardedOrderService;
+import com.example.demo.shard.ShardRouter;
+import com.example.demo.shard.ShardedSqlSessionFactory;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 订单分片测试类
+ * 使用三个嵌入式H2数据库作为订单分片，每个分片都有完整的用户表，订单按 user_id 分布在各分片
+ */
+public class ShardingTest {
+    private static final Logger logger = LoggerFactory.getLogger(ShardingTest.class);
+
+    private static final String H2_OPTIONS = ";MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1";
+    private static final int SHARD_COUNT = 3;
+
+    public static void main(String[] args) throws Exception {
+        ShardRouter router = new ShardRouter(SHARD_COUNT);
+        System.setProperty("jdbc.driver", "org.h2.Driver");
+        System.setProperty("jdbc.username", "sa");
+        System.setProperty("jdbc.password", "");
+        for (int shard = 0; shard < SHARD_COUNT; shard++) {
+            String url = "jdbc:h2:mem:shard" + shard + H2_OPTIONS;
+            createShard(url, router, shard);
+            System.setProperty("shard." + shard + ".url", url);
+        }
+        ShardedSqlSessionFactory shards = ShardedSqlSessionFactory.getInstance();
+        ShardedOrderService orderService = new ShardedOrderService(shards);
+
+        try {
+            testCreateOrders(orderService, router);
+            testSingleShardOperations(orderService, router);
+            testScatterGather(orderService);
+        } finally {
+            shards.close();
+            // Ehcache的线程不是守护线程
+            System.exit(0);
+        }
+    }
+
+    /**
+     * 测试订单写入用户所在分片，ID由分片的自增列生成
+     */
+    private static void testCreateOrders(ShardedOrderService orderService, ShardRouter router) {
+        logger.info("========== 测试批量创建订单 ==========");
+        List<Order> orders = new ArrayList<>();
+        for (long userId = 1; userId <= 6; userId++) {
+            for (int i = 1; i <= 2; i++) {
+                orders.add(new Order(null, "ORD-" + userId + "-" + i, new BigDecimal(userId * 100 + i), userId,
+                        null, null));
+            }
+        }
+        logger.info("写入 {} 条订单", orderService.createOrders(orders));
+        for (Order order : orders) {
+            logger.info("订单 {} 用户 {} -> 分片 {}", order.getId(), order.getUserId(),
+                    router.shardOfOrder(order.getId()));
+        }
+    }
+
+    /**
+     * 测试按ID和用户ID的操作只访问一个分片
+     */
+    private static void testSingleShardOperations(ShardedOrderService orderService, ShardRouter router) {
+        logger.info("========== 测试单分片操作 ==========");
+        logger.info("用户 4 的订单（分片 {}）: {}", router.shardOfUser(4L), orderService.getOrdersByUserId(4L));
+
+        Order order = orderService.getOrdersByUserId(5L).get(0);
+        order.setAmount(new BigDecimal("999.00"));
+        orderService.updateOrder(order);
+        logger.info("更新后: {}", orderService.getOrderById(order.getId()));
+
+        Order withUser = orderService.getOrderWithUser(order.getId());
+        logger.info("订单 {} 的用户: {}", withUser.getId(), withUser.getUser().getName());
+
+        try {
+            order.setUserId(6L);
+            orderService.updateOrder(order);
+        } catch (IllegalArgumentException e) {
+            logger.info("跨分片修改用户被拒绝: {}", e.getMessage());
+        }
+
+        Long deletedId = orderService.getOrdersByUserId(6L).get(0).getId();
+        logger.info("删除订单 {}: {} 行，再次查询: {}", deletedId, orderService.deleteOrder(deletedId),
+                orderService.getOrderById(deletedId));
+    }
+
+    /**
+     * 测试并行查询所有分片后合并
+     */
+    private static void testScatterGather(ShardedOrderService orderService) {
+        logger.info("========== 测试跨分片查询 ==========");
+        logger.info("所有订单数: {}", orderService.getAllOrders().size());
+        List<Long> ids = new ArrayList<>();
+        orderService.getAllOrdersWithUser().forEach(order -> ids.add(order.getId()));
+        logger.info("所有订单及用户（按ID归并）: {}", ids);
+        // forEachOrderWithUser 的游标归并与此相同，其 fetchSize 是MySQL逐行读取的写法，H2不支持，这里不演示
+    }
+
+    /**
+     * 创建分片的表结构，写入完整的用户数据，并按分片设置订单ID的自增起始值和步长
+     */
+    private static void createShard(String url, ShardRouter router, int shard) throws Exception {
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Reader schema = Resources.getResourceAsReader("h2/schema.sql");
+             Statement statement = connection.createStatement()) {
+            ScriptRunner runner = new ScriptRunner(connection);
+            runner.setAutoCommit(true);
+            runner.setLogWriter(null);
+            runner.runScript(schema);
+            statement.execute("ALTER TABLE orders ALTER COLUMN id RESTART WITH " + router.firstIdOf(shard)
+                    + " SET INCREMENT BY " + router.getShardCount());
+            statement.execute("INSERT INTO department (name, description) VALUES ('技术部', '负责产品研发')");
+            for (int i = 1; i <= 6; i++) {
+                statement.execute("INSERT INTO user (name, email, age, department_id) VALUES ('用户" + i
+                        + "', 'user" + i + "@example.com', " + (20 + i) + ", 1)");
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,10 @@
+package com.example.demo.cache;
+
+/**
+ * 缓存值与字节数组之间的转换，用于需要序列化存储的缓存层（如堆外存储）
+ */
+public interface CacheCodec {
+    byte[] encode(Object value);
+
+    Object decode(byte[] data);
+}
\ No newline at end of file
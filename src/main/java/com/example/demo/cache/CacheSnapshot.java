@@ -0,0 +1,25 @@
+package com.example.demo.cache;
+
+import lombok.Data;
+
+/**
+ * 二级缓存统计快照，耗时单位为毫秒
+ */
+@Data
+public class CacheSnapshot {
+    private String namespace;
+    private long hits;
+    private long misses;
+    private double hitRatio;
+    private long offHeapHits;
+    private long puts;
+    private long removals;
+    private long clears;
+    private long evictions;
+    private long expirations;
+    private int size;
+    private long estimatedHeapBytes;
+    private long offHeapBytes;
+    private double averageLoadMillis;
+    private double maxLoadMillis;
+}
\ No newline at end of file
@@ -0,0 +1,260 @@
+package com.example.demo.cache;
+
+import com.example.demo.utils.JmxUtil;
+import org.apache.ibatis.cache.Cache;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个Mapper命名空间的二级缓存统计，同时作为JMX MXBean发布
+ * 加载耗时为同一个键从未命中到写入缓存的间隔（二级缓存在事务提交时才写入，包含提交前的业务耗时）
+ */
+public class CacheStatistics implements CacheStatisticsMXBean {
+    private static final String OBJECT_NAME_PREFIX = "com.example.demo:type=CacheStatistics,name=";
+    private static final Map<String, CacheStatistics> REGISTRY = new ConcurrentHashMap<>();
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    // 等待写入的未命中键上限，超出后不再统计加载耗时
+    private static final int MAX_PENDING_MISSES = 10_000;
+    // 每16次写入估算一次条目大小
+    private static final int SIZE_SAMPLE_MASK = 15;
+
+    private final String namespace;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder offHeapHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final AtomicLong puts = new AtomicLong();
+    private final LongAdder removals = new LongAdder();
+    private final LongAdder clears = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+    private final AtomicLong maxLoadNanos = new AtomicLong();
+    private final LongAdder sampledEntries = new LongAdder();
+    private final LongAdder sampledBytes = new LongAdder();
+    private final Map<Object, Long> pendingMisses = new ConcurrentHashMap<>();
+    private volatile Cache cache;
+
+    private CacheStatistics(String namespace) {
+        this.namespace = namespace;
+    }
+
+    /**
+     * 获取命名空间的统计对象，首次获取时注册MBean
+     */
+    public static CacheStatistics forNamespace(String namespace) {
+        CacheStatistics statistics = REGISTRY.get(namespace);
+        if (statistics != null) {
+            return statistics;
+        }
+        return REGISTRY.computeIfAbsent(namespace, id -> {
+            CacheStatistics created = new CacheStatistics(id);
+            JmxUtil.register(OBJECT_NAME_PREFIX + JmxUtil.quote(id), created);
+            return created;
+        });
+    }
+
+    /**
+     * 所有命名空间的统计快照，按命名空间排序
+     */
+    public static Map<String, CacheSnapshot> snapshot() {
+        Map<String, CacheSnapshot> result = new TreeMap<>();
+        for (CacheStatistics statistics : REGISTRY.values()) {
+            result.put(statistics.namespace, statistics.toSnapshot());
+        }
+        return result;
+    }
+
+    /**
+     * 关联统计的缓存，用于读取当前条目数
+     */
+    public void bind(Cache cache) {
+        this.cache = cache;
+    }
+
+    public void recordHit() {
+        hits.increment();
+    }
+
+    /**
+     * 命中堆外存储，同时会记录一次recordHit
+     */
+    public void recordOffHeapHit() {
+        offHeapHits.increment();
+    }
+
+    public void recordMiss(Object key) {
+        misses.increment();
+        if (pendingMisses.size() < MAX_PENDING_MISSES) {
+            pendingMisses.putIfAbsent(key, System.nanoTime());
+        }
+    }
+
+    public void recordPut(Object key, Object value) {
+        Long missedAt = pendingMisses.remove(key);
+        // 事务提交时MyBatis会为未加载的未命中键写入null，不计为写入
+        if (value == null) {
+            return;
+        }
+        long sequence = puts.incrementAndGet();
+        if (missedAt != null) {
+            long elapsed = System.nanoTime() - missedAt;
+            loadCount.increment();
+            loadNanos.add(elapsed);
+            maxLoadNanos.accumulateAndGet(elapsed, Math::max);
+        }
+        // TinyLfuCache自己按条目大小计算容量，不需要抽样
+        if ((sequence & SIZE_SAMPLE_MASK) == 1 && !(cache instanceof TinyLfuCache)) {
+            sampledEntries.increment();
+            sampledBytes.add(ObjectSizeEstimator.estimate(key) + ObjectSizeEstimator.estimate(value));
+        }
+    }
+
+    public void recordRemoval(Object key) {
+        removals.increment();
+        pendingMisses.remove(key);
+    }
+
+    public void recordClear() {
+        clears.increment();
+        pendingMisses.clear();
+    }
+
+    public void recordEviction() {
+        evictions.increment();
+    }
+
+    public void recordExpiration() {
+        expirations.increment();
+    }
+
+    public CacheSnapshot toSnapshot() {
+        CacheSnapshot snapshot = new CacheSnapshot();
+        snapshot.setNamespace(namespace);
+        snapshot.setHits(getHits());
+        snapshot.setMisses(getMisses());
+        snapshot.setHitRatio(getHitRatio());
+        snapshot.setOffHeapHits(getOffHeapHits());
+        snapshot.setPuts(getPuts());
+        snapshot.setRemovals(getRemovals());
+        snapshot.setClears(getClears());
+        snapshot.setEvictions(getEvictions());
+        snapshot.setExpirations(getExpirations());
+        snapshot.setSize(getSize());
+        snapshot.setEstimatedHeapBytes(getEstimatedHeapBytes());
+        snapshot.setOffHeapBytes(getOffHeapBytes());
+        snapshot.setAverageLoadMillis(getAverageLoadMillis());
+        snapshot.setMaxLoadMillis(getMaxLoadMillis());
+        return snapshot;
+    }
+
+    @Override
+    public String getNamespace() {
+        return namespace;
+    }
+
+    @Override
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    @Override
+    public long getOffHeapHits() {
+        return offHeapHits.sum();
+    }
+
+    @Override
+    public long getPuts() {
+        return puts.get();
+    }
+
+    @Override
+    public long getRemovals() {
+        return removals.sum();
+    }
+
+    @Override
+    public long getClears() {
+        return clears.sum();
+    }
+
+    @Override
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    @Override
+    public long getExpirations() {
+        return expirations.sum();
+    }
+
+    @Override
+    public int getSize() {
+        Cache current = cache;
+        return current == null ? 0 : current.getSize();
+    }
+
+    /**
+     * 按抽样得到的平均条目大小乘以当前条目数估算
+     */
+    @Override
+    public long getEstimatedHeapBytes() {
+        Cache current = cache;
+        if (current instanceof TinyLfuCache) {
+            return ((TinyLfuCache) current).getWeightedSize();
+        }
+        long entries = sampledEntries.sum();
+        return entries == 0 ? 0 : sampledBytes.sum() / entries * getSize();
+    }
+
+    @Override
+    public long getOffHeapBytes() {
+        Cache current = cache;
+        return current instanceof TinyLfuCache ? ((TinyLfuCache) current).getOffHeapUsedBytes() : 0;
+    }
+
+    @Override
+    public double getAverageLoadMillis() {
+        long count = loadCount.sum();
+        return count == 0 ? 0 : loadNanos.sum() / NANOS_PER_MILLI / count;
+    }
+
+    @Override
+    public double getMaxLoadMillis() {
+        return maxLoadNanos.get() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public void reset() {
+        hits.reset();
+        offHeapHits.reset();
+        misses.reset();
+        puts.set(0);
+        removals.reset();
+        clears.reset();
+        evictions.reset();
+        expirations.reset();
+        loadCount.reset();
+        loadNanos.reset();
+        maxLoadNanos.set(0);
+        sampledEntries.reset();
+        sampledBytes.reset();
+        pendingMisses.clear();
+    }
+}
\ No newline at end of file
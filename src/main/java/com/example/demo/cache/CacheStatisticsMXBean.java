@@ -0,0 +1,38 @@
+package com.example.demo.cache;
+
+/**
+ * 二级缓存统计的JMX接口，耗时单位为毫秒
+ */
+public interface CacheStatisticsMXBean {
+    String getNamespace();
+
+    long getHits();
+
+    long getMisses();
+
+    double getHitRatio();
+
+    long getOffHeapHits();
+
+    long getPuts();
+
+    long getRemovals();
+
+    long getClears();
+
+    long getEvictions();
+
+    long getExpirations();
+
+    int getSize();
+
+    long getEstimatedHeapBytes();
+
+    long getOffHeapBytes();
+
+    double getAverageLoadMillis();
+
+    double getMaxLoadMillis();
+
+    void reset();
+}
\ No newline at end of file
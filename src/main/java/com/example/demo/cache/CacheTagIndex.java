@@ -0,0 +1,144 @@
+package com.example.demo.cache;
+
+import org.apache.ibatis.cache.CacheKey;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
+
+/**
+ * 单个命名空间的缓存键索引：主键 -> 包含该主键的缓存键，语句ID -> 该语句产生的缓存键
+ * 写操作据此只淘汰受影响的缓存条目。
+ */
+public class CacheTagIndex {
+    private final int maxKeys;
+    private final Map<Object, Set<CacheKey>> keysByTag = new ConcurrentHashMap<>();
+    private final Map<String, Set<CacheKey>> keysByStatement = new ConcurrentHashMap<>();
+    // 缓存键 -> 登记时的语句ID和标签，移除时据此清理反向引用
+    private final Map<CacheKey, IndexedKey> indexedKeys = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    public CacheTagIndex(int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * 登记缓存键及其标签，返回false表示索引已满，调用方应清空整个命名空间
+     */
+    public boolean register(String statementId, CacheKey cacheKey, Collection<Object> tags) {
+        if (indexedKeys.putIfAbsent(cacheKey, new IndexedKey(statementId, tags)) != null) {
+            return true;
+        }
+        if (size.incrementAndGet() > maxKeys) {
+            return false;
+        }
+        keysByStatement.computeIfAbsent(statementId, id -> ConcurrentHashMap.newKeySet()).add(cacheKey);
+        for (Object tag : tags) {
+            keysByTag.computeIfAbsent(tag, t -> ConcurrentHashMap.newKeySet()).add(cacheKey);
+        }
+        return true;
+    }
+
+    public boolean isIndexed(CacheKey cacheKey) {
+        return indexedKeys.containsKey(cacheKey);
+    }
+
+    /**
+     * 取出并移除带有任一标签的缓存键
+     */
+    public Set<CacheKey> removeByTags(Collection<Object> tags) {
+        Set<CacheKey> result = new HashSet<>();
+        for (Object tag : tags) {
+            Set<CacheKey> keys = keysByTag.remove(tag);
+            if (keys != null) {
+                result.addAll(keys);
+            }
+        }
+        forget(result);
+        return result;
+    }
+
+    /**
+     * 取出并移除带有任一标签、且满足条件（语句ID，缓存键）的缓存键，不满足条件的键保留
+     */
+    public Set<CacheKey> removeByTags(Collection<Object> tags, BiPredicate<String, CacheKey> filter) {
+        Set<CacheKey> result = new HashSet<>();
+        for (Object tag : tags) {
+            Set<CacheKey> keys = keysByTag.get(tag);
+            if (keys == null) {
+                continue;
+            }
+            for (CacheKey key : keys) {
+                IndexedKey indexed = indexedKeys.get(key);
+                if (indexed != null && filter.test(indexed.statementId, key)) {
+                    result.add(key);
+                }
+            }
+        }
+        forget(result);
+        return result;
+    }
+
+    /**
+     * 取出并移除语句ID满足条件的缓存键
+     */
+    public Set<CacheKey> removeByStatements(Predicate<String> statementFilter) {
+        Set<CacheKey> result = new HashSet<>();
+        for (Map.Entry<String, Set<CacheKey>> entry : keysByStatement.entrySet()) {
+            if (statementFilter.test(entry.getKey())) {
+                result.addAll(entry.getValue());
+            }
+        }
+        forget(result);
+        return result;
+    }
+
+    public void clear() {
+        keysByTag.clear();
+        keysByStatement.clear();
+        indexedKeys.clear();
+        size.set(0);
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * 从语句和其他标签的键集合中移除已淘汰的键
+     */
+    private void forget(Set<CacheKey> keys) {
+        for (CacheKey key : keys) {
+            IndexedKey indexed = indexedKeys.remove(key);
+            if (indexed == null) {
+                continue;
+            }
+            size.decrementAndGet();
+            Set<CacheKey> statementKeys = keysByStatement.get(indexed.statementId);
+            if (statementKeys != null) {
+                statementKeys.remove(key);
+            }
+            for (Object tag : indexed.tags) {
+                Set<CacheKey> tagKeys = keysByTag.get(tag);
+                if (tagKeys != null) {
+                    tagKeys.remove(key);
+                }
+            }
+        }
+    }
+
+    private static class IndexedKey {
+        final String statementId;
+        final Collection<Object> tags;
+
+        IndexedKey(String statementId, Collection<Object> tags) {
+            this.statementId = statementId;
+            this.tags = tags;
+        }
+    }
+}
\ No newline at end of file
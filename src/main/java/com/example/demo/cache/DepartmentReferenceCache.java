@@ -0,0 +1,184 @@
+package com.example.demo.cache;
+
+import com.example.demo.datasource.ReadWriteDataSource;
+import com.example.demo.entity.Department;
+import com.example.demo.plugin.PluginUtil;
+import com.example.demo.utils.UnitOfWork;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.defaults.DefaultSqlSessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 部门表的全量内存缓存：部门数量少、很少修改，整张表加载为不可变快照，读取不加锁、不访问数据库
+ * 快照在首次使用时加载，之后每隔 refreshSeconds 在后台重新加载并整体替换；
+ * 通过 DepartmentService 的写操作在事务结束后立即重新加载，事务结束前当前线程的读取绕过快照，读到自己的修改。
+ * 其他途径（直接调用Mapper、其他节点）的写入最多在一个刷新周期后可见。
+ * 返回的是快照中实体的副本，调用方可以修改。
+ */
+public class DepartmentReferenceCache {
+    private static final Logger logger = LoggerFactory.getLogger(DepartmentReferenceCache.class);
+    private static final String LOAD_STATEMENT = "com.example.demo.mapper.DepartmentMapper.selectAllForReference";
+    private static final Map<Configuration, DepartmentReferenceCache> INSTANCES = new ConcurrentHashMap<>();
+    // 当前线程的事务中修改过部门，事务结束前不使用快照
+    private static final ThreadLocal<Boolean> WRITING = new ThreadLocal<>();
+    private static final ScheduledExecutorService REFRESHER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "department-reference-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final SqlSessionFactory sqlSessionFactory;
+    private final long refreshSeconds;
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile Snapshot snapshot;
+
+    private DepartmentReferenceCache(Configuration configuration, long refreshSeconds) {
+        this.sqlSessionFactory = new DefaultSqlSessionFactory(configuration);
+        this.refreshSeconds = refreshSeconds;
+    }
+
+    /**
+     * 获取配置对应的缓存，第一次获取时创建
+     */
+    public static DepartmentReferenceCache of(Configuration configuration, long refreshSeconds) {
+        return INSTANCES.computeIfAbsent(configuration, c -> new DepartmentReferenceCache(c, refreshSeconds));
+    }
+
+    /**
+     * 部门写操作提交后调用：当前线程在事务结束前绕过快照，事务结束后重新加载；没有启用缓存时什么也不做
+     */
+    public static void afterWrite(Configuration configuration) {
+        DepartmentReferenceCache cache = INSTANCES.get(configuration);
+        if (cache == null) {
+            return;
+        }
+        WRITING.set(Boolean.TRUE);
+        UnitOfWork.afterCompletion(() -> {
+            WRITING.remove();
+            cache.refresh();
+        });
+    }
+
+    /**
+     * 首次调用时加载快照并开始定时刷新
+     */
+    public void start() {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        refresh();
+        if (refreshSeconds > 0) {
+            REFRESHER.scheduleWithFixedDelay(this::refresh, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * 重新加载整张表并替换快照；加载失败时丢弃快照，在下次刷新成功前查询数据库
+     */
+    public synchronized void refresh() {
+        try (SqlSession sqlSession = openSession()) {
+            List<Department> departments = sqlSession.selectList(LOAD_STATEMENT);
+            snapshot = new Snapshot(departments);
+            logger.debug("部门引用缓存已加载 {} 个部门", departments.size());
+        } catch (RuntimeException | SQLException e) {
+            snapshot = null;
+            logger.warn("部门引用缓存加载失败，暂时查询数据库", e);
+        }
+    }
+
+    /**
+     * 读写分离时从主库加载，避免复制延迟让写后的刷新读到旧数据；整表很小，不必分担到从库
+     */
+    private SqlSession openSession() throws SQLException {
+        DataSource dataSource = sqlSessionFactory.getConfiguration().getEnvironment().getDataSource();
+        if (dataSource instanceof ReadWriteDataSource) {
+            return sqlSessionFactory.openSession(((ReadWriteDataSource) dataSource).getPrimary().getConnection());
+        }
+        return sqlSessionFactory.openSession();
+    }
+
+    /**
+     * 根据ID获取部门；快照不可用或没有该部门时返回null，由调用方查询数据库
+     */
+    public Department get(Object id) {
+        Snapshot current = current();
+        Department department = current == null ? null : current.byId.get(PluginUtil.normalizeKey(id));
+        return department == null ? null : copy(department);
+    }
+
+    /**
+     * 获取所有部门；快照不可用时返回null
+     */
+    public List<Department> getAll() {
+        Snapshot current = current();
+        if (current == null) {
+            return null;
+        }
+        List<Department> departments = new ArrayList<>(current.all.size());
+        current.all.forEach(department -> departments.add(copy(department)));
+        return departments;
+    }
+
+    /**
+     * 按ids顺序获取部门；快照不可用或有任一部门不在快照中时返回null
+     */
+    public List<Department> getAll(Collection<?> ids) {
+        Snapshot current = current();
+        if (current == null) {
+            return null;
+        }
+        List<Department> departments = new ArrayList<>(ids.size());
+        for (Object id : ids) {
+            Department department = current.byId.get(PluginUtil.normalizeKey(id));
+            if (department == null) {
+                return null;
+            }
+            departments.add(copy(department));
+        }
+        return departments;
+    }
+
+    private Snapshot current() {
+        return WRITING.get() != null ? null : snapshot;
+    }
+
+    private static Department copy(Department department) {
+        Date createdTime = department.getCreatedTime() == null ? null : new Date(department.getCreatedTime().getTime());
+        return new Department(department.getId(), department.getName(), department.getDescription(), createdTime, null);
+    }
+
+    /**
+     * 不可变快照，整体替换
+     */
+    private static class Snapshot {
+        final List<Department> all;
+        final Map<Object, Department> byId;
+
+        Snapshot(List<Department> departments) {
+            Map<Object, Department> map = new HashMap<>(departments.size() * 2);
+            for (Department department : departments) {
+                map.put(PluginUtil.normalizeKey(department.getId()), department);
+            }
+            this.all = Collections.unmodifiableList(new ArrayList<>(departments));
+            this.byId = Collections.unmodifiableMap(map);
+        }
+    }
+}
\ No newline at end of file
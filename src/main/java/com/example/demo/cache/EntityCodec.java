@@ -0,0 +1,452 @@
+package com.example.demo.cache;
+
+import com.example.demo.entity.Department;
+import com.example.demo.entity.Order;
+import com.example.demo.entity.User;
+import com.example.demo.utils.SerializationUtil;
+import org.apache.ibatis.cache.CacheException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 针对User/Order/Department的二进制编解码
+ * 按字段顺序写入，不写类描述和字段名；每个实体先写一个字节的非空字段位图，整数使用变长编码。
+ * 同一个对象（实体或列表）只编码一次，再次出现时写入引用编号，因此支持
+ * user.department.users、order.user 这类循环引用，解码后对象之间的引用关系与编码前一致。
+ * 其他类型（如延迟加载的代理对象）退回Java序列化，单独序列化的部分不与外部共享引用。
+ */
+public class EntityCodec implements CacheCodec {
+    private static final byte VERSION = 1;
+
+    private static final byte NULL = 0;
+    private static final byte REFERENCE = 1;
+    private static final byte USER = 2;
+    private static final byte ORDER = 3;
+    private static final byte DEPARTMENT = 4;
+    private static final byte LIST = 5;
+    private static final byte LONG = 6;
+    private static final byte INTEGER = 7;
+    private static final byte STRING = 8;
+    private static final byte DECIMAL = 9;
+    private static final byte DATE = 10;
+    private static final byte SERIALIZED = 11;
+    private static final byte TIMESTAMP = 12;
+
+    @Override
+    public byte[] encode(Object value) {
+        Writer writer = new Writer();
+        writer.writeByte(VERSION);
+        writer.writeValue(value);
+        return writer.toByteArray();
+    }
+
+    @Override
+    public Object decode(byte[] data) {
+        Reader reader = new Reader(data);
+        if (data.length == 0 || reader.readByte() != VERSION) {
+            throw new CacheException("不支持的缓存数据版本");
+        }
+        try {
+            return reader.readValue();
+        } catch (IndexOutOfBoundsException | ClassCastException e) {
+            throw new CacheException("缓存数据格式错误: " + e, e);
+        }
+    }
+
+    private static final class Writer {
+        private byte[] buffer = new byte[256];
+        private int position;
+        // 已编码的对象 -> 引用编号
+        private final Map<Object, Integer> handles = new IdentityHashMap<>();
+
+        void writeValue(Object value) {
+            if (value == null) {
+                writeByte(NULL);
+                return;
+            }
+            Class<?> type = value.getClass();
+            if (type == Long.class) {
+                writeByte(LONG);
+                writeVarLong((Long) value);
+            } else if (type == String.class) {
+                writeByte(STRING);
+                writeString((String) value);
+            } else if (type == Integer.class) {
+                writeByte(INTEGER);
+                writeVarLong((Integer) value);
+            } else if (type == BigDecimal.class) {
+                writeByte(DECIMAL);
+                writeDecimal((BigDecimal) value);
+            } else if (type == Date.class) {
+                writeByte(DATE);
+                writeVarLong(((Date) value).getTime());
+            } else if (type == Timestamp.class) {
+                // 毫秒 + 纳秒部分，与Timestamp的精度一致
+                writeByte(TIMESTAMP);
+                writeVarLong(((Timestamp) value).getTime());
+                writeVarLong(((Timestamp) value).getNanos());
+            } else if (writeReference(value)) {
+                return;
+            } else if (type == User.class) {
+                writeUser((User) value);
+            } else if (type == Order.class) {
+                writeOrder((Order) value);
+            } else if (type == Department.class) {
+                writeDepartment((Department) value);
+            } else if (type == ArrayList.class) {
+                List<?> list = (List<?>) value;
+                writeByte(LIST);
+                writeVarLong(list.size());
+                for (Object element : list) {
+                    writeValue(element);
+                }
+            } else {
+                // 代理对象等无法按字段编码的类型
+                byte[] serialized = SerializationUtil.serialize(value);
+                writeByte(SERIALIZED);
+                writeVarLong(serialized.length);
+                writeBytes(serialized);
+            }
+        }
+
+        /**
+         * 对象已编码过时写入引用编号并返回true，否则登记编号
+         */
+        private boolean writeReference(Object value) {
+            Integer handle = handles.get(value);
+            if (handle != null) {
+                writeByte(REFERENCE);
+                writeVarLong(handle);
+                return true;
+            }
+            handles.put(value, handles.size());
+            return false;
+        }
+
+        private void writeUser(User user) {
+            writeByte(USER);
+            writeByte(presence(user.getId(), user.getName(), user.getEmail(), user.getAge(),
+                    user.getDepartmentId(), user.getDepartment(), user.getOrders()));
+            if (user.getId() != null) {
+                writeVarLong(user.getId());
+            }
+            if (user.getName() != null) {
+                writeString(user.getName());
+            }
+            if (user.getEmail() != null) {
+                writeString(user.getEmail());
+            }
+            if (user.getAge() != null) {
+                writeVarLong(user.getAge());
+            }
+            if (user.getDepartmentId() != null) {
+                writeVarLong(user.getDepartmentId());
+            }
+            if (user.getDepartment() != null) {
+                writeValue(user.getDepartment());
+            }
+            if (user.getOrders() != null) {
+                writeValue(user.getOrders());
+            }
+        }
+
+        private void writeOrder(Order order) {
+            writeByte(ORDER);
+            writeByte(presence(order.getId(), order.getOrderNo(), order.getAmount(), order.getUserId(),
+                    order.getOrderTime(), order.getUser()));
+            if (order.getId() != null) {
+                writeVarLong(order.getId());
+            }
+            if (order.getOrderNo() != null) {
+                writeString(order.getOrderNo());
+            }
+            if (order.getAmount() != null) {
+                writeDecimal(order.getAmount());
+            }
+            if (order.getUserId() != null) {
+                writeVarLong(order.getUserId());
+            }
+            if (order.getOrderTime() != null) {
+                writeValue(order.getOrderTime());
+            }
+            if (order.getUser() != null) {
+                writeValue(order.getUser());
+            }
+        }
+
+        private void writeDepartment(Department department) {
+            writeByte(DEPARTMENT);
+            writeByte(presence(department.getId(), department.getName(), department.getDescription(),
+                    department.getCreatedTime(), department.getUsers()));
+            if (department.getId() != null) {
+                writeVarLong(department.getId());
+            }
+            if (department.getName() != null) {
+                writeString(department.getName());
+            }
+            if (department.getDescription() != null) {
+                writeString(department.getDescription());
+            }
+            if (department.getCreatedTime() != null) {
+                writeValue(department.getCreatedTime());
+            }
+            if (department.getUsers() != null) {
+                writeValue(department.getUsers());
+            }
+        }
+
+        private static int presence(Object... fields) {
+            int bits = 0;
+            for (int i = 0; i < fields.length; i++) {
+                if (fields[i] != null) {
+                    bits |= 1 << i;
+                }
+            }
+            return bits;
+        }
+
+        /**
+         * 精度（scale）+ 非标度值，非标度值超过long范围时写入补码字节
+         */
+        private void writeDecimal(BigDecimal value) {
+            writeVarLong(value.scale());
+            BigInteger unscaled = value.unscaledValue();
+            if (unscaled.bitLength() < 64) {
+                writeByte(0);
+                writeVarLong(unscaled.longValue());
+            } else {
+                byte[] bytes = unscaled.toByteArray();
+                writeByte(1);
+                writeVarLong(bytes.length);
+                writeBytes(bytes);
+            }
+        }
+
+        private void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            writeBytes(bytes);
+        }
+
+        /**
+         * ZigZag变长编码，绝对值小的数（包括负数）占用字节少
+         */
+        private void writeVarLong(long value) {
+            long zigzag = (value << 1) ^ (value >> 63);
+            ensureCapacity(10);
+            while ((zigzag & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            buffer[position++] = (byte) zigzag;
+        }
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[position++] = (byte) value;
+        }
+
+        private void writeBytes(byte[] bytes) {
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] buffer;
+        private int position;
+        // 引用编号 -> 已解码的对象，与编码时登记的顺序一致
+        private final List<Object> handles = new ArrayList<>();
+
+        Reader(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        Object readValue() {
+            byte tag = readByte();
+            switch (tag) {
+                case NULL:
+                    return null;
+                case REFERENCE:
+                    return handles.get((int) readVarLong());
+                case LONG:
+                    return readVarLong();
+                case STRING:
+                    return readString();
+                case INTEGER:
+                    return (int) readVarLong();
+                case DECIMAL:
+                    return readDecimal();
+                case DATE:
+                    return new Date(readVarLong());
+                case TIMESTAMP:
+                    Timestamp timestamp = new Timestamp(readVarLong());
+                    timestamp.setNanos((int) readVarLong());
+                    return timestamp;
+                case USER:
+                    return readUser();
+                case ORDER:
+                    return readOrder();
+                case DEPARTMENT:
+                    return readDepartment();
+                case LIST:
+                    return readList();
+                case SERIALIZED:
+                    // 编码时同样登记了引用编号
+                    Object deserialized = SerializationUtil.deserialize(readBytes((int) readVarLong()));
+                    handles.add(deserialized);
+                    return deserialized;
+                default:
+                    throw new CacheException("未知的缓存数据类型: " + tag);
+            }
+        }
+
+        // 对象在读取字段之前登记编号，字段中指向它的引用才能解析
+        private User readUser() {
+            User user = new User();
+            handles.add(user);
+            int bits = readByte();
+            if ((bits & 1) != 0) {
+                user.setId(readVarLong());
+            }
+            if ((bits & 1 << 1) != 0) {
+                user.setName(readString());
+            }
+            if ((bits & 1 << 2) != 0) {
+                user.setEmail(readString());
+            }
+            if ((bits & 1 << 3) != 0) {
+                user.setAge((int) readVarLong());
+            }
+            if ((bits & 1 << 4) != 0) {
+                user.setDepartmentId(readVarLong());
+            }
+            if ((bits & 1 << 5) != 0) {
+                user.setDepartment((Department) readValue());
+            }
+            if ((bits & 1 << 6) != 0) {
+                user.setOrders(castList(readValue()));
+            }
+            return user;
+        }
+
+        private Order readOrder() {
+            Order order = new Order();
+            handles.add(order);
+            int bits = readByte();
+            if ((bits & 1) != 0) {
+                order.setId(readVarLong());
+            }
+            if ((bits & 1 << 1) != 0) {
+                order.setOrderNo(readString());
+            }
+            if ((bits & 1 << 2) != 0) {
+                order.setAmount(readDecimal());
+            }
+            if ((bits & 1 << 3) != 0) {
+                order.setUserId(readVarLong());
+            }
+            if ((bits & 1 << 4) != 0) {
+                order.setOrderTime((Date) readValue());
+            }
+            if ((bits & 1 << 5) != 0) {
+                order.setUser((User) readValue());
+            }
+            return order;
+        }
+
+        private Department readDepartment() {
+            Department department = new Department();
+            handles.add(department);
+            int bits = readByte();
+            if ((bits & 1) != 0) {
+                department.setId(readVarLong());
+            }
+            if ((bits & 1 << 1) != 0) {
+                department.setName(readString());
+            }
+            if ((bits & 1 << 2) != 0) {
+                department.setDescription(readString());
+            }
+            if ((bits & 1 << 3) != 0) {
+                department.setCreatedTime((Date) readValue());
+            }
+            if ((bits & 1 << 4) != 0) {
+                department.setUsers(castList(readValue()));
+            }
+            return department;
+        }
+
+        private List<Object> readList() {
+            int size = (int) readVarLong();
+            List<Object> list = new ArrayList<>(size);
+            handles.add(list);
+            for (int i = 0; i < size; i++) {
+                list.add(readValue());
+            }
+            return list;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> List<T> castList(Object value) {
+            return (List<T>) value;
+        }
+
+        private BigDecimal readDecimal() {
+            int scale = (int) readVarLong();
+            if (readByte() == 0) {
+                return BigDecimal.valueOf(readVarLong(), scale);
+            }
+            return new BigDecimal(new BigInteger(readBytes((int) readVarLong())), scale);
+        }
+
+        private String readString() {
+            int length = (int) readVarLong();
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        private long readVarLong() {
+            long zigzag = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer[position++];
+                zigzag |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+
+        byte readByte() {
+            return buffer[position++];
+        }
+
+        private byte[] readBytes(int length) {
+            byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+            position += length;
+            return bytes;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,84 @@
+package com.example.demo.cache;
+
+/**
+ * 4位计数的Count-Min Sketch，用于估算键的访问频率
+ * 每个long存放16个计数器，每个键在4行中各占一个计数器，频率取最小值；
+ * 累计增加次数达到采样上限后所有计数减半（老化），让频率反映近期访问。
+ * 非线程安全，由调用方加锁。
+ */
+class FrequencySketch {
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_COUNT = 15;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(long expectedEntries) {
+        int size = tableSizeFor((int) Math.min(Math.max(expectedEntries, 64), 1 << 24));
+        table = new long[size];
+        tableMask = size - 1;
+        sampleSize = 10 * size;
+    }
+
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < 4; i++) {
+            int offset = counterOffset(hash, i);
+            int count = (int) ((table[indexOf(hash, i)] >>> offset) & MAX_COUNT);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int offset = counterOffset(hash, i);
+            if (((table[index] >>> offset) & MAX_COUNT) != MAX_COUNT) {
+                table[index] += 1L << offset;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * 所有计数器减半
+     */
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions >>>= 1;
+    }
+
+    private int indexOf(int hash, int row) {
+        long value = (hash + SEEDS[row]) * SEEDS[row];
+        value += value >>> 32;
+        return (int) value & tableMask;
+    }
+
+    private static int counterOffset(int hash, int row) {
+        return ((hash >>> (row << 3)) & 15) << 2;
+    }
+
+    private static int spread(int hash) {
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        return (hash >>> 16) ^ hash;
+    }
+
+    private static int tableSizeFor(int capacity) {
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        return Math.max(size, 64);
+    }
+}
\ No newline at end of file
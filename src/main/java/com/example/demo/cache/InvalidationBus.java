@@ -0,0 +1,177 @@
+package com.example.demo.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 节点间的缓存失效总线
+ * 本节点提交的写操作广播给其他节点，收到的消息交给 {@link Listener} 在本地淘汰。
+ * 传输不保证送达：每个节点的消息序号连续递增，并定期发送携带最新序号的心跳，
+ * 接收方发现序号不连续时清空所有缓存，因此丢包时的不一致时间不超过一个心跳间隔。
+ * 发送失败只记录日志，不影响已经提交的事务，对方同样按序号不连续处理。
+ */
+public class InvalidationBus {
+    private static final Logger logger = LoggerFactory.getLogger(InvalidationBus.class);
+    // 超过该数量的心跳间隔没有收到消息的节点视为已下线，不再记录它的序号
+    private static final int PEER_TIMEOUT_HEARTBEATS = 10;
+
+    /**
+     * 收到其他节点的失效消息时的本地处理
+     */
+    public interface Listener {
+        void evict(String namespace, boolean membershipChanged, Collection<Object> ids);
+
+        void clear(String namespace);
+
+        void clearAll();
+    }
+
+    private final long nodeId = UUID.randomUUID().getMostSignificantBits();
+    private final AtomicLong sequence = new AtomicLong();
+    // 节点ID -> 已收到的最大序号
+    private final Map<Long, Long> lastSequences = new ConcurrentHashMap<>();
+    // 节点ID -> 最近一次收到消息的时间，节点重启后使用新的ID，旧ID需要清理
+    private final Map<Long, Long> lastSeen = new ConcurrentHashMap<>();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong gaps = new AtomicLong();
+
+    private final InvalidationTransport transport;
+    private final Listener listener;
+    private final int maxIdsPerMessage;
+    private ScheduledExecutorService heartbeat;
+    private long peerTimeoutMillis;
+
+    public InvalidationBus(InvalidationTransport transport, Listener listener, int maxIdsPerMessage) {
+        this.transport = transport;
+        this.listener = listener;
+        this.maxIdsPerMessage = maxIdsPerMessage;
+    }
+
+    public void start(Properties transportProperties, long heartbeatMillis) throws IOException {
+        peerTimeoutMillis = heartbeatMillis * PEER_TIMEOUT_HEARTBEATS;
+        transport.start(transportProperties, this::onMessage);
+        heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-invalidation-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat.scheduleAtFixedRate(this::sendHeartbeat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+        logger.info("缓存失效总线已启动，节点 {}，心跳间隔 {}ms", Long.toHexString(nodeId), heartbeatMillis);
+    }
+
+    public void close() {
+        if (heartbeat != null) {
+            heartbeat.shutdownNow();
+        }
+        transport.close();
+    }
+
+    /**
+     * 广播按主键淘汰，主键过多时改为清空命名空间
+     */
+    public void publishEvict(String namespace, boolean membershipChanged, Collection<Object> ids) {
+        if (ids.size() > maxIdsPerMessage) {
+            publishClear(namespace);
+            return;
+        }
+        publish(InvalidationMessage.Type.EVICT, namespace, membershipChanged, ids);
+    }
+
+    public void publishClear(String namespace) {
+        publish(InvalidationMessage.Type.CLEAR, namespace, true, null);
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    public long getPublishedCount() {
+        return published.get();
+    }
+
+    public long getReceivedCount() {
+        return received.get();
+    }
+
+    public long getGapCount() {
+        return gaps.get();
+    }
+
+    // 加锁保证序号顺序与发送顺序一致；发送失败时序号已经使用，其他节点收到下一条消息或心跳时发现不连续
+    private synchronized void publish(InvalidationMessage.Type type, String namespace, boolean membershipChanged,
+                                      Collection<Object> ids) {
+        InvalidationMessage message = new InvalidationMessage(nodeId, sequence.incrementAndGet(), type, namespace,
+                membershipChanged, ids);
+        try {
+            transport.send(message.encode());
+            published.incrementAndGet();
+        } catch (Exception e) {
+            logger.warn("发送缓存失效消息失败（{} {}），其他节点将清空所有缓存，原因: {}", type, namespace, e.getMessage());
+        }
+    }
+
+    private synchronized void sendHeartbeat() {
+        try {
+            transport.send(new InvalidationMessage(nodeId, sequence.get(), InvalidationMessage.Type.HEARTBEAT,
+                    null, false, null).encode());
+        } catch (Exception e) {
+            logger.warn("发送缓存失效心跳失败：{}", e.getMessage());
+        }
+        removeSilentPeers();
+    }
+
+    /**
+     * 清理长时间没有消息的节点；下线的节点之后又发来消息时按新节点处理，序号从0开始比较
+     */
+    private void removeSilentPeers() {
+        long cutoff = System.currentTimeMillis() - peerTimeoutMillis;
+        lastSeen.entrySet().removeIf(entry -> {
+            if (entry.getValue() >= cutoff) {
+                return false;
+            }
+            lastSequences.remove(entry.getKey());
+            return true;
+        });
+    }
+
+    private void onMessage(byte[] data) {
+        InvalidationMessage message = InvalidationMessage.decode(data, 0, data.length);
+        if (message == null || message.getNodeId() == nodeId) {
+            return;
+        }
+        // 未见过的节点从0开始，启动后才加入的节点首条消息序号大于1时同样视为丢失
+        long last = lastSequences.getOrDefault(message.getNodeId(), 0L);
+        boolean heartbeatOnly = message.getType() == InvalidationMessage.Type.HEARTBEAT;
+        long expected = heartbeatOnly ? last : last + 1;
+        if (message.getSequence() > expected) {
+            gaps.incrementAndGet();
+            logger.warn("节点 {} 的失效消息不连续（已收到 {}，当前 {}），清空所有缓存",
+                    Long.toHexString(message.getNodeId()), last, message.getSequence());
+            listener.clearAll();
+        }
+        lastSequences.merge(message.getNodeId(), message.getSequence(), Math::max);
+        lastSeen.put(message.getNodeId(), System.currentTimeMillis());
+        if (heartbeatOnly) {
+            return;
+        }
+        received.incrementAndGet();
+        logger.debug("收到缓存失效消息 {}", message);
+        if (message.getType() == InvalidationMessage.Type.CLEAR) {
+            listener.clear(message.getNamespace());
+        } else {
+            listener.evict(message.getNamespace(), message.isMembershipChanged(), message.getIds());
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,133 @@
+package com.example.demo.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 节点间传递的缓存失效消息
+ * 每个节点的消息带有递增序号，心跳携带最近一次发出的序号，接收方据此发现丢失的消息。
+ */
+public class InvalidationMessage {
+    public enum Type {
+        /** 按主键淘汰命名空间中的条目 */
+        EVICT,
+        /** 清空命名空间 */
+        CLEAR,
+        /** 心跳，sequence为最近一次发出的消息序号 */
+        HEARTBEAT
+    }
+
+    private static final int MAGIC = 0x4D42494E;
+    private static final byte LONG_ID = 0;
+    private static final byte STRING_ID = 1;
+
+    private final long nodeId;
+    private final long sequence;
+    private final Type type;
+    private final String namespace;
+    // 是否增删了行（INSERT/DELETE），决定接收方是否淘汰列表、统计类语句
+    private final boolean membershipChanged;
+    private final List<Object> ids;
+
+    public InvalidationMessage(long nodeId, long sequence, Type type, String namespace,
+                               boolean membershipChanged, Collection<Object> ids) {
+        this.nodeId = nodeId;
+        this.sequence = sequence;
+        this.type = type;
+        this.namespace = namespace == null ? "" : namespace;
+        this.membershipChanged = membershipChanged;
+        this.ids = ids == null ? new ArrayList<>() : new ArrayList<>(ids);
+    }
+
+    public byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + ids.size() * 9);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeLong(nodeId);
+            out.writeLong(sequence);
+            out.writeByte(type.ordinal());
+            out.writeUTF(namespace);
+            out.writeBoolean(membershipChanged);
+            out.writeInt(ids.size());
+            for (Object id : ids) {
+                if (id instanceof Long) {
+                    out.writeByte(LONG_ID);
+                    out.writeLong((Long) id);
+                } else {
+                    out.writeByte(STRING_ID);
+                    out.writeUTF(String.valueOf(id));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 解码消息，格式不正确时返回null
+     */
+    public static InvalidationMessage decode(byte[] data, int offset, int length) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, offset, length))) {
+            if (in.readInt() != MAGIC) {
+                return null;
+            }
+            long nodeId = in.readLong();
+            long sequence = in.readLong();
+            int typeIndex = in.readByte();
+            if (typeIndex < 0 || typeIndex >= Type.values().length) {
+                return null;
+            }
+            String namespace = in.readUTF();
+            boolean membershipChanged = in.readBoolean();
+            int count = in.readInt();
+            if (count < 0 || count > length) {
+                return null;
+            }
+            List<Object> ids = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                ids.add(in.readByte() == LONG_ID ? (Object) in.readLong() : in.readUTF());
+            }
+            return new InvalidationMessage(nodeId, sequence, Type.values()[typeIndex], namespace, membershipChanged, ids);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getNamespace() {
+        return namespace;
+    }
+
+    public boolean isMembershipChanged() {
+        return membershipChanged;
+    }
+
+    public List<Object> getIds() {
+        return ids;
+    }
+
+    @Override
+    public String toString() {
+        return type + "(node=" + Long.toHexString(nodeId) + ", seq=" + sequence + ", namespace=" + namespace
+                + ", ids=" + ids + ")";
+    }
+}
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.example.demo.cache;
+
+import java.io.IOException;
+import java.util.Properties;
+import java.util.function.Consumer;
+
+/**
+ * 缓存失效消息的传输方式，发送为尽力而为，丢失的消息由 {@link InvalidationBus} 通过序号发现
+ */
+public interface InvalidationTransport {
+
+    /**
+     * 开始接收消息，properties 为插件中以 transport. 开头的配置（已去掉前缀）
+     */
+    void start(Properties properties, Consumer<byte[]> receiver) throws IOException;
+
+    /**
+     * 发送给所有其他节点
+     */
+    void send(byte[] message);
+
+    void close();
+}
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.example.demo.cache;
+
+import com.example.demo.utils.SerializationUtil;
+
+/**
+ * 使用Java序列化的编解码，适用于任意实现了Serializable的结果
+ */
+public class JavaSerializationCodec implements CacheCodec {
+    @Override
+    public byte[] encode(Object value) {
+        return SerializationUtil.serialize(value);
+    }
+
+    @Override
+    public Object decode(byte[] data) {
+        return SerializationUtil.deserialize(data);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,386 @@
+package com.example.demo.cache;
+
+import com.example.demo.plugin.PluginUtil;
+import org.apache.ibatis.builder.InitializingObject;
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.session.RowBounds;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * 规范化的二级缓存：实体按主键只存一份，查询条目只保存主键列表，读取时从实体重新组装
+ * 用法：<cache type="com.example.demo.cache.StatisticsCache">
+ *          <property name="delegateType" value="com.example.demo.cache.NormalizedCache"/>
+ *       </cache>
+ * 语句由 TaggedCacheInvalidationInterceptor 在首次查询时登记；只有单个不含嵌套映射的resultMap、
+ * 结果类型有主键属性的语句才规范化，同一个resultMap的语句共用实体，其他语句（关联查询、统计等）原样存储。
+ * 按主键查询的语句（keyedStatements）即使没有自己的条目，也能直接用其他语句缓存的实体命中，
+ * 因此selectAll之后的selectById不再查询数据库。
+ * UPDATE只淘汰实体和不能保留的条目，updateStableStatements的主键列表保留，重新组装时缺少实体按未命中处理。
+ * 服务层的批量按ID查询也通过 {@link #getEntities}/{@link #putEntities} 直接读写实体（见 BatchEntityLoader）。
+ * 条目存储默认委托给EhcacheCache。
+ */
+public class NormalizedCache implements Cache, InitializingObject {
+    private static final String DEFAULT_DELEGATE = "org.mybatis.caches.ehcache.EhcacheCache";
+    // 超过该行数的结果原样存储，避免大量实体条目挤占存储容量
+    private static final int MAX_NORMALIZED_ROWS = 256;
+
+    private final String id;
+    private final Map<String, Shape> shapes = new ConcurrentHashMap<>();
+    private final Set<String> resultMapIds = ConcurrentHashMap.newKeySet();
+    // 淘汰实体或清空的次数，在删除之前递增
+    private final AtomicLong evictions = new AtomicLong();
+    private String delegateType = DEFAULT_DELEGATE;
+    private Cache delegate;
+
+    public NormalizedCache(String id) {
+        this.id = id;
+    }
+
+    public void setDelegateType(String delegateType) {
+        this.delegateType = delegateType;
+    }
+
+    @Override
+    public void initialize() {
+        try {
+            delegate = (Cache) Class.forName(delegateType).getConstructor(String.class).newInstance(id);
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new CacheException("无法创建缓存实现 " + delegateType + "，原因: " + e, e);
+        }
+        if (delegate instanceof InitializingObject) {
+            try {
+                ((InitializingObject) delegate).initialize();
+            } catch (Exception e) {
+                throw new CacheException("缓存实现初始化失败 " + delegateType + "，原因: " + e, e);
+            }
+        }
+    }
+
+    /**
+     * 从MyBatis的装饰器链中找到NormalizedCache，没有时返回null
+     */
+    public static NormalizedCache unwrap(Cache cache) {
+        while (cache != null) {
+            if (cache instanceof NormalizedCache) {
+                return (NormalizedCache) cache;
+            }
+            MetaObject metaObject = SystemMetaObject.forObject(cache);
+            if (!metaObject.hasGetter("delegate")) {
+                return null;
+            }
+            cache = (Cache) metaObject.getValue("delegate");
+        }
+        return null;
+    }
+
+    /**
+     * 登记语句，可以规范化的语句之后的结果按主键拆分存储
+     * @param idProperty 结果类型的主键属性，没有时为空字符串
+     * @param keyed 参数是否就是主键
+     */
+    public void register(MappedStatement ms, String idProperty, boolean keyed) {
+        if (shapes.containsKey(ms.getId())) {
+            return;
+        }
+        List<ResultMap> resultMaps = ms.getResultMaps();
+        if (idProperty.isEmpty() || resultMaps.size() != 1 || resultMaps.get(0).hasNestedResultMaps()
+                || resultMaps.get(0).hasNestedQueries()) {
+            shapes.put(ms.getId(), Shape.NONE);
+            return;
+        }
+        ResultMap resultMap = resultMaps.get(0);
+        shapes.put(ms.getId(), new Shape(resultMap.getId(), resultMap.getType(), idProperty, keyed));
+        resultMapIds.add(resultMap.getId());
+    }
+
+    /**
+     * 条目是否为主键列表（而不是原样存储的结果）
+     */
+    public boolean isNormalized(Object key) {
+        return delegate.getObject(key) instanceof IdList;
+    }
+
+    /**
+     * 淘汰主键对应的实体，包含它们的主键列表下次读取时按未命中处理
+     */
+    public void evictEntities(Collection<Object> ids) {
+        evictions.incrementAndGet();
+        for (String resultMapId : resultMapIds) {
+            for (Object entityId : ids) {
+                delegate.removeObject(new EntityKey(resultMapId, entityId));
+            }
+        }
+    }
+
+    /**
+     * 实体的淘汰计数，加载实体之前读取，交给 {@link #putEntities}
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * 按主键读取resultMap映射的实体，没有缓存的主键不在结果中
+     */
+    public Map<Object, Object> getEntities(String resultMapId, Collection<?> ids) {
+        Map<Object, Object> entities = new HashMap<>(ids.size() * 2);
+        for (Object entityId : ids) {
+            Object key = PluginUtil.normalizeKey(entityId);
+            Object entity = delegate.getObject(new EntityKey(resultMapId, key));
+            if (entity != null) {
+                entities.put(key, entity);
+            }
+        }
+        return entities;
+    }
+
+    /**
+     * 放入按主键加载的实体；evictionCount之后有过淘汰时不放入，加载的可能是修改之前的数据。
+     * 放入之后再检查一次，与放入同时发生的淘汰可能已经错过了这些实体
+     * @param entities 主键到实体
+     * @param evictionCount 加载之前的 {@link #getEvictionCount()}
+     */
+    public void putEntities(String resultMapId, Map<?, ?> entities, long evictionCount) {
+        if (evictions.get() != evictionCount) {
+            return;
+        }
+        resultMapIds.add(resultMapId);
+        for (Map.Entry<?, ?> entry : entities.entrySet()) {
+            delegate.putObject(new EntityKey(resultMapId, PluginUtil.normalizeKey(entry.getKey())), entry.getValue());
+        }
+        if (evictions.get() != evictionCount) {
+            for (Object entityId : entities.keySet()) {
+                delegate.removeObject(new EntityKey(resultMapId, PluginUtil.normalizeKey(entityId)));
+            }
+        }
+    }
+
+    public Cache getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public void putObject(Object key, Object value) {
+        Shape shape = shapeOf(key);
+        if (shape == null || shape == Shape.NONE || !(value instanceof List)
+                || ((List<?>) value).size() > MAX_NORMALIZED_ROWS) {
+            delegate.putObject(key, value);
+            return;
+        }
+        List<?> rows = (List<?>) value;
+        Object[] ids = new Object[rows.size()];
+        for (int i = 0; i < ids.length; i++) {
+            Object row = rows.get(i);
+            // 延迟加载代理等子类对象不能与其他语句共用
+            ids[i] = row == null || row.getClass() != shape.type ? null
+                    : PluginUtil.normalizeKey(SystemMetaObject.forObject(row).getValue(shape.idProperty));
+            if (ids[i] == null) {
+                delegate.putObject(key, value);
+                return;
+            }
+        }
+        for (int i = 0; i < ids.length; i++) {
+            delegate.putObject(new EntityKey(shape.resultMapId, ids[i]), rows.get(i));
+        }
+        delegate.putObject(key, new IdList(shape.resultMapId, ids));
+    }
+
+    @Override
+    public Object getObject(Object key) {
+        Object value = delegate.getObject(key);
+        if (value instanceof IdList) {
+            return hydrate((IdList) value);
+        }
+        if (value != null) {
+            return value;
+        }
+        Shape shape = shapeOf(key);
+        if (shape == null || !shape.keyed) {
+            return null;
+        }
+        // 按主键查询：直接使用其他语句缓存的实体
+        Object entityId = keyedParameter(key);
+        Object entity = entityId == null ? null : delegate.getObject(new EntityKey(shape.resultMapId, entityId));
+        if (entity == null) {
+            return null;
+        }
+        List<Object> rows = new ArrayList<>(1);
+        rows.add(entity);
+        return rows;
+    }
+
+    private List<Object> hydrate(IdList idList) {
+        List<Object> rows = new ArrayList<>(idList.ids.length);
+        for (Object entityId : idList.ids) {
+            Object entity = delegate.getObject(new EntityKey(idList.resultMapId, entityId));
+            if (entity == null) {
+                return null;
+            }
+            rows.add(entity);
+        }
+        return rows;
+    }
+
+    @Override
+    public Object removeObject(Object key) {
+        return delegate.removeObject(key);
+    }
+
+    @Override
+    public void clear() {
+        evictions.incrementAndGet();
+        delegate.clear();
+    }
+
+    @Override
+    public int getSize() {
+        return delegate.getSize();
+    }
+
+    @Override
+    public ReadWriteLock getReadWriteLock() {
+        return delegate.getReadWriteLock();
+    }
+
+    /**
+     * CacheKey的组成：语句ID、offset、limit、SQL、各参数值、环境ID（配置了环境时）
+     */
+    @SuppressWarnings("unchecked")
+    private static List<Object> componentsOf(Object key) {
+        if (!(key instanceof CacheKey)) {
+            return null;
+        }
+        return (List<Object>) SystemMetaObject.forObject(key).getValue("updateList");
+    }
+
+    private Shape shapeOf(Object key) {
+        List<Object> components = componentsOf(key);
+        return components == null || components.isEmpty() ? null : shapes.get(String.valueOf(components.get(0)));
+    }
+
+    /**
+     * 只有一个参数且没有分页的按主键查询才能用实体命中
+     */
+    private static Object keyedParameter(Object key) {
+        List<Object> components = componentsOf(key);
+        if (components.size() != 6 || !Integer.valueOf(RowBounds.NO_ROW_OFFSET).equals(components.get(1))
+                || !Integer.valueOf(RowBounds.NO_ROW_LIMIT).equals(components.get(2))) {
+            return null;
+        }
+        return PluginUtil.normalizeKey(components.get(4));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Cache)) {
+            return false;
+        }
+        return id.equals(((Cache) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return id.hashCode();
+    }
+
+    /**
+     * 语句结果的形态：同一个resultMap映射出的实体可以共用
+     */
+    private static class Shape {
+        static final Shape NONE = new Shape(null, null, null, false);
+
+        final String resultMapId;
+        final Class<?> type;
+        final String idProperty;
+        final boolean keyed;
+
+        Shape(String resultMapId, Class<?> type, String idProperty, boolean keyed) {
+            this.resultMapId = resultMapId;
+            this.type = type;
+            this.idProperty = idProperty;
+            this.keyed = keyed;
+        }
+    }
+
+    /**
+     * 实体条目的键
+     */
+    private static class EntityKey implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final String resultMapId;
+        final Object id;
+
+        EntityKey(String resultMapId, Object id) {
+            this.resultMapId = resultMapId;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof EntityKey)) {
+                return false;
+            }
+            EntityKey other = (EntityKey) o;
+            return resultMapId.equals(other.resultMapId) && id.equals(other.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * resultMapId.hashCode() + id.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return resultMapId + "#" + id;
+        }
+    }
+
+    /**
+     * 查询条目：结果中各实体的主键
+     */
+    private static class IdList implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final String resultMapId;
+        final Object[] ids;
+
+        IdList(String resultMapId, Object[] ids) {
+            this.resultMapId = resultMapId;
+            this.ids = ids;
+        }
+
+        @Override
+        public String toString() {
+            return resultMapId + Arrays.toString(ids);
+        }
+    }
+}
\ No newline at end of file
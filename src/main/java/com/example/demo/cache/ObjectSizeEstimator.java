@@ -0,0 +1,197 @@
+package com.example.demo.cache;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 估算对象图占用的堆内存（按64位JVM、开启压缩指针计算）
+ * 实体类通过反射遍历字段，JDK类型按常见布局估算；MyBatis内部对象（如延迟加载代理持有的配置）只计引用。
+ * 结果用于容量调优，不追求精确。
+ */
+public class ObjectSizeEstimator {
+    private static final int OBJECT_HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int MAX_OBJECTS = 100_000;
+
+    private static final Map<Class<?>, ClassLayout> LAYOUTS = new ConcurrentHashMap<>();
+
+    private ObjectSizeEstimator() {}
+
+    public static long estimate(Object root) {
+        if (root == null) {
+            return 0;
+        }
+        Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Object> pending = new ArrayDeque<>();
+        pending.push(root);
+        long total = 0;
+        while (!pending.isEmpty() && visited.size() < MAX_OBJECTS) {
+            Object current = pending.pop();
+            if (!visited.add(current)) {
+                continue;
+            }
+            total += sizeOf(current, pending);
+        }
+        return total;
+    }
+
+    /**
+     * 计算单个对象的大小，并把需要继续遍历的引用放入pending
+     */
+    private static long sizeOf(Object object, Deque<Object> pending) {
+        Class<?> type = object.getClass();
+        if (type.isArray()) {
+            return arraySize(object, pending);
+        }
+        if (object instanceof String) {
+            // String对象 + byte[]（按Latin1估算，中文字符按2字节）
+            String value = (String) object;
+            return align(OBJECT_HEADER + 12) + align(ARRAY_HEADER + (long) value.length() * (isLatin1(value) ? 1 : 2));
+        }
+        if (object instanceof Number || object instanceof Boolean || object instanceof Character) {
+            return numberSize(object);
+        }
+        if (object instanceof java.util.Date || object instanceof java.time.temporal.Temporal) {
+            return 32;
+        }
+        if (object instanceof Collection) {
+            Collection<?> collection = (Collection<?>) object;
+            collection.forEach(element -> pushIfPresent(element, pending));
+            return align(OBJECT_HEADER + 16) + align(ARRAY_HEADER + (long) REFERENCE * collection.size())
+                    + (object instanceof Set ? 32L * collection.size() : 0);
+        }
+        if (object instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) object;
+            map.forEach((key, value) -> {
+                pushIfPresent(key, pending);
+                pushIfPresent(value, pending);
+            });
+            return align(OBJECT_HEADER + 32) + align(ARRAY_HEADER + (long) REFERENCE * map.size() * 2) + 32L * map.size();
+        }
+        if (isOpaque(type)) {
+            return align(OBJECT_HEADER);
+        }
+        ClassLayout layout = LAYOUTS.computeIfAbsent(type, ClassLayout::new);
+        for (Field field : layout.referenceFields) {
+            try {
+                pushIfPresent(field.get(object), pending);
+            } catch (IllegalAccessException e) {
+                // 无法访问的字段只计引用大小
+            }
+        }
+        return layout.shallowSize;
+    }
+
+    private static long arraySize(Object array, Deque<Object> pending) {
+        int length = Array.getLength(array);
+        Class<?> componentType = array.getClass().getComponentType();
+        if (!componentType.isPrimitive()) {
+            for (Object element : (Object[]) array) {
+                pushIfPresent(element, pending);
+            }
+            return align(ARRAY_HEADER + (long) REFERENCE * length);
+        }
+        return align(ARRAY_HEADER + (long) primitiveSize(componentType) * length);
+    }
+
+    private static long numberSize(Object number) {
+        if (number instanceof BigDecimal) {
+            BigDecimal decimal = (BigDecimal) number;
+            return 40 + (decimal.precision() > 18 ? numberSize(decimal.unscaledValue()) : 0);
+        }
+        if (number instanceof BigInteger) {
+            return align(OBJECT_HEADER + 24) + align(ARRAY_HEADER + ((BigInteger) number).bitLength() / 8 + 4);
+        }
+        if (number instanceof Long || number instanceof Double) {
+            return 24;
+        }
+        return 16;
+    }
+
+    private static void pushIfPresent(Object value, Deque<Object> pending) {
+        if (value != null) {
+            pending.push(value);
+        }
+    }
+
+    /**
+     * 其他JDK类型以及MyBatis、字节码代理库的内部对象不再展开
+     */
+    private static boolean isOpaque(Class<?> type) {
+        String name = type.getName();
+        return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("sun.")
+                || name.startsWith("jdk.") || name.startsWith("org.apache.ibatis.") || name.startsWith("javassist.")
+                || name.startsWith("net.bytebuddy.") || type.isEnum() || Class.class == type;
+    }
+
+    private static boolean isLatin1(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int primitiveSize(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        }
+        if (type == int.class || type == float.class) {
+            return 4;
+        }
+        if (type == short.class || type == char.class) {
+            return 2;
+        }
+        return 1;
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+
+    /**
+     * 缓存每个类的浅大小和引用字段
+     */
+    private static class ClassLayout {
+        final long shallowSize;
+        final List<Field> referenceFields = new ArrayList<>();
+
+        ClassLayout(Class<?> type) {
+            long size = OBJECT_HEADER;
+            for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    if (field.getType().isPrimitive()) {
+                        size += primitiveSize(field.getType());
+                        continue;
+                    }
+                    size += REFERENCE;
+                    try {
+                        field.setAccessible(true);
+                        referenceFields.add(field);
+                    } catch (RuntimeException e) {
+                        // JDK模块未开放的字段只计引用大小
+                    }
+                }
+            }
+            shallowSize = align(size);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,263 @@
+package com.example.demo.cache;
+
+import org.apache.ibatis.cache.CacheException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 堆外的序列化条目存储，数据保存在直接内存或内存映射文件中，不占用Java堆
+ * 容量按固定大小的段划分，新条目顺序追加到当前段；当前段写满后循环使用下一个段，
+ * 复用前淘汰该段中仍然有效的全部条目（按写入顺序的FIFO淘汰）。
+ * 删除和覆盖只移除索引，空间在段被复用时回收，因此不会产生碎片。
+ * 索引（键 -> 位置）保存在堆内。
+ */
+public class OffHeapStore {
+    private static final int MAX_SEGMENT_BYTES = 64 * 1024 * 1024;
+    private static final int MIN_SEGMENT_BYTES = 64 * 1024;
+
+    private final int segmentBytes;
+    private final int segmentCount;
+    // 关闭后为null，释放已分配的直接内存和映射
+    private ByteBuffer[] segments;
+    private List<List<Object>> segmentKeys = new ArrayList<>();
+    private final Map<Object, Location> index = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final File file;
+    private FileChannel channel;
+
+    // 以下字段只在持有写锁时修改
+    private int currentSegment;
+    private int position;
+    private long usedBytes;
+
+    /**
+     * @param maxBytes  总容量（字节）
+     * @param file      内存映射文件，为null时使用直接内存
+     */
+    public OffHeapStore(long maxBytes, File file) {
+        this.segmentBytes = (int) Math.min(MAX_SEGMENT_BYTES, Math.max(MIN_SEGMENT_BYTES, maxBytes / 16));
+        int count = (int) Math.max(1, (maxBytes + segmentBytes - 1) / segmentBytes);
+        this.segmentCount = count;
+        this.segments = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            segmentKeys.add(new ArrayList<>());
+        }
+        this.file = file;
+    }
+
+    /**
+     * 写入条目，返回因空间不足被淘汰的条目数；
+     * stillValid 在写锁内判断，返回false时放弃写入（写入期间缓存已被修改）；关闭后不再写入
+     */
+    public int put(Object key, byte[] data, long expiresAt, BooleanSupplier stillValid) {
+        lock.writeLock().lock();
+        try {
+            if (segments == null || !stillValid.getAsBoolean()) {
+                return 0;
+            }
+            removeQuietly(key);
+            if (data.length > segmentBytes) {
+                return 0;
+            }
+            int evicted = 0;
+            if (position + data.length > segmentBytes || segments[currentSegment] == null) {
+                if (segments[currentSegment] != null) {
+                    currentSegment = (currentSegment + 1) % segments.length;
+                }
+                evicted = recycle(currentSegment);
+            }
+            ByteBuffer target = segments[currentSegment].duplicate();
+            target.position(position);
+            target.put(data);
+            index.put(key, new Location(currentSegment, position, data.length, expiresAt));
+            segmentKeys.get(currentSegment).add(key);
+            position += data.length;
+            usedBytes += data.length;
+            return evicted;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 读取条目的副本，不存在时返回null
+     */
+    public Entry get(Object key) {
+        lock.readLock().lock();
+        try {
+            Location location = index.get(key);
+            if (location == null) {
+                return null;
+            }
+            ByteBuffer source = segments[location.segment].duplicate();
+            source.position(location.offset);
+            byte[] data = new byte[location.length];
+            source.get(data);
+            return new Entry(data, location.expiresAt);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean remove(Object key) {
+        lock.writeLock().lock();
+        try {
+            return removeQuietly(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            index.clear();
+            if (segmentKeys != null) {
+                for (List<Object> keys : segmentKeys) {
+                    keys.clear();
+                }
+            }
+            currentSegment = 0;
+            position = 0;
+            usedBytes = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 有效条目占用的字节数（不含已删除但尚未回收的空间）
+     */
+    public long getUsedBytes() {
+        lock.readLock().lock();
+        try {
+            return usedBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getMaxBytes() {
+        return (long) segmentBytes * segmentCount;
+    }
+
+    /**
+     * 关闭内存映射文件并释放对各段缓冲区的引用，直接内存在缓冲区被回收时释放
+     */
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            index.clear();
+            usedBytes = 0;
+            segments = null;
+            segmentKeys = null;
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+        } catch (IOException e) {
+            throw new CacheException("关闭堆外缓存文件失败: " + file, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean removeQuietly(Object key) {
+        Location location = index.remove(key);
+        if (location == null) {
+            return false;
+        }
+        usedBytes -= location.length;
+        return true;
+    }
+
+    /**
+     * 复用段之前淘汰段中仍然有效的条目，段的空间在首次使用时才分配
+     */
+    private int recycle(int segment) {
+        int evicted = 0;
+        for (Object key : segmentKeys.get(segment)) {
+            Location location = index.get(key);
+            if (location != null && location.segment == segment) {
+                removeQuietly(key);
+                evicted++;
+            }
+        }
+        segmentKeys.get(segment).clear();
+        if (segments[segment] == null) {
+            segments[segment] = allocate(segment);
+        }
+        position = 0;
+        return evicted;
+    }
+
+    private ByteBuffer allocate(int segment) {
+        if (file == null) {
+            return ByteBuffer.allocateDirect(segmentBytes);
+        }
+        try {
+            if (channel == null) {
+                File parent = file.getParentFile();
+                if (parent != null && !parent.exists() && !parent.mkdirs()) {
+                    throw new IOException("无法创建目录 " + parent);
+                }
+                file.deleteOnExit();
+                channel = new RandomAccessFile(file, "rw").getChannel();
+            }
+            return channel.map(FileChannel.MapMode.READ_WRITE, (long) segment * segmentBytes, segmentBytes);
+        } catch (IOException e) {
+            throw new CacheException("创建堆外缓存文件失败: " + file, e);
+        }
+    }
+
+    public static final class Entry {
+        private final byte[] data;
+        private final long expiresAt;
+
+        Entry(byte[] data, long expiresAt) {
+            this.data = data;
+            this.expiresAt = expiresAt;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+    }
+
+    private static final class Location {
+        final int segment;
+        final int offset;
+        final int length;
+        final long expiresAt;
+
+        Location(int segment, int offset, int length, long expiresAt) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
\ No newline at end of file
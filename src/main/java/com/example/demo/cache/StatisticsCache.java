@@ -0,0 +1,142 @@
+package com.example.demo.cache;
+
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Element;
+import net.sf.ehcache.event.CacheEventListenerAdapter;
+import org.apache.ibatis.builder.InitializingObject;
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+import org.mybatis.caches.ehcache.AbstractEhcacheCache;
+
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * 统计二级缓存命中、未命中、写入、淘汰、过期、内存占用和加载耗时的缓存装饰器
+ * 用法：<cache type="com.example.demo.cache.StatisticsCache"/>，
+ * 默认委托给EhcacheCache，可通过 <property name="delegateType" value="..."/> 指定其他实现。
+ */
+public class StatisticsCache implements Cache, InitializingObject {
+    private static final String DEFAULT_DELEGATE = "org.mybatis.caches.ehcache.EhcacheCache";
+
+    private final String id;
+    private final CacheStatistics statistics;
+    private String delegateType = DEFAULT_DELEGATE;
+    private Cache delegate;
+
+    public StatisticsCache(String id) {
+        this.id = id;
+        this.statistics = CacheStatistics.forNamespace(id);
+    }
+
+    public void setDelegateType(String delegateType) {
+        this.delegateType = delegateType;
+    }
+
+    @Override
+    public void initialize() {
+        try {
+            Class<?> type = Class.forName(delegateType);
+            delegate = (Cache) type.getConstructor(String.class).newInstance(id);
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new CacheException("无法创建缓存实现 " + delegateType + "，原因: " + e, e);
+        }
+        if (delegate instanceof InitializingObject) {
+            try {
+                ((InitializingObject) delegate).initialize();
+            } catch (Exception e) {
+                throw new CacheException("缓存实现初始化失败 " + delegateType + "，原因: " + e, e);
+            }
+        }
+        statistics.bind(delegate);
+        Cache storage = delegate instanceof NormalizedCache ? ((NormalizedCache) delegate).getDelegate() : delegate;
+        if (storage instanceof AbstractEhcacheCache) {
+            listenEhcacheEvents();
+        }
+    }
+
+    /**
+     * Ehcache的淘汰和过期发生在内部，通过事件监听计数
+     */
+    private void listenEhcacheEvents() {
+        Ehcache ehcache = CacheManager.getInstance().getEhcache(id);
+        if (ehcache == null) {
+            return;
+        }
+        ehcache.getCacheEventNotificationService().registerListener(new CacheEventListenerAdapter() {
+            @Override
+            public void notifyElementEvicted(Ehcache cache, Element element) {
+                statistics.recordEviction();
+            }
+
+            @Override
+            public void notifyElementExpired(Ehcache cache, Element element) {
+                statistics.recordExpiration();
+            }
+        });
+    }
+
+    public Cache getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public void putObject(Object key, Object value) {
+        delegate.putObject(key, value);
+        statistics.recordPut(key, value);
+    }
+
+    @Override
+    public Object getObject(Object key) {
+        Object value = delegate.getObject(key);
+        if (value == null) {
+            statistics.recordMiss(key);
+        } else {
+            statistics.recordHit();
+        }
+        return value;
+    }
+
+    @Override
+    public Object removeObject(Object key) {
+        statistics.recordRemoval(key);
+        return delegate.removeObject(key);
+    }
+
+    @Override
+    public void clear() {
+        statistics.recordClear();
+        delegate.clear();
+    }
+
+    @Override
+    public int getSize() {
+        return delegate.getSize();
+    }
+
+    @Override
+    public ReadWriteLock getReadWriteLock() {
+        return delegate.getReadWriteLock();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Cache)) {
+            return false;
+        }
+        return id.equals(((Cache) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return id.hashCode();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,649 @@
+package com.example.demo.cache;
+
+import org.apache.ibatis.builder.InitializingObject;
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.io.Resources;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * W-TinyLFU淘汰策略的堆内二级缓存
+ * 新条目先进入窗口区（LRU，约占1%容量）；离开窗口时与主区的淘汰候选比较访问频率，频率更高者留下，
+ * 避免selectAll等一次性扫描结果挤掉频繁访问的selectById条目。主区分为试用区和保护区（SLRU），
+ * 试用区条目再次被访问后晋升到保护区。
+ * 容量按估算的条目大小（字节）计算，读操作不加锁，访问记录先写入有损的环形缓冲区，写操作时批量处理。
+ * 用法：<cache type="com.example.demo.cache.TinyLfuCache">
+ *          <property name="maximumWeight" value="33554432"/>
+ *          <property name="ttlSeconds" value="600"/>
+ *       </cache>
+ * 统计数据直接记录到CacheStatistics，不需要再用StatisticsCache装饰。
+ * 配置 offHeapMaxBytes 后启用堆外二级存储（{@link OffHeapStore}）：从堆内淘汰的条目序列化后转入堆外，
+ * 堆外命中时反序列化并移回堆内，堆内只保留最热的条目。序列化方式由 codec 指定，默认为 {@link EntityCodec}。
+ */
+public class TinyLfuCache implements Cache, InitializingObject {
+    private static final Logger logger = LoggerFactory.getLogger(TinyLfuCache.class);
+    private static final int READ_BUFFER_SIZE = 128;
+    private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+    // 用于估算频率统计表大小的平均条目大小
+    private static final long ASSUMED_ENTRY_WEIGHT = 1024;
+    // 每个条目的固定开销（节点对象和哈希表条目）
+    private static final long NODE_OVERHEAD = 96;
+    private static final int EXPIRE_SCAN_LIMIT = 16;
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private final String id;
+    private final CacheStatistics statistics;
+    private final Map<Object, Node> data = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final AtomicReferenceArray<Node> readBuffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+    private final AtomicLong readCounter = new AtomicLong();
+
+    private final AccessOrderDeque window = new AccessOrderDeque();
+    private final AccessOrderDeque probation = new AccessOrderDeque();
+    private final AccessOrderDeque protectedDeque = new AccessOrderDeque();
+
+    private long maximumWeight = 32L * 1024 * 1024;
+    private long ttlSeconds = 600;
+    private int windowPercent = 1;
+    private long offHeapMaxBytes;
+    private String offHeapDirectory;
+    private CacheCodec codec = new EntityCodec();
+    private volatile OffHeapStore offHeap;
+    // 每次删除或清空时在evictionLock内递增，用于放弃期间进行的降级和晋升，避免写回已失效的数据
+    private final AtomicLong invalidations = new AtomicLong();
+
+    // 以下字段只在持有evictionLock时修改
+    private FrequencySketch sketch;
+    private long windowMaximum;
+    private long protectedMaximum;
+    private long windowWeight;
+    private long protectedWeight;
+    private volatile long weightedSize;
+    // 从堆内淘汰、等待在锁外序列化转入堆外的节点
+    private List<Node> pendingDemotions = new ArrayList<>();
+
+    public TinyLfuCache(String id) {
+        this.id = id;
+        this.statistics = CacheStatistics.forNamespace(id);
+        initialize();
+    }
+
+    public void setMaximumWeight(long maximumWeight) {
+        this.maximumWeight = maximumWeight;
+    }
+
+    public void setTtlSeconds(long ttlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public void setWindowPercent(int windowPercent) {
+        this.windowPercent = windowPercent;
+    }
+
+    public void setOffHeapMaxBytes(long offHeapMaxBytes) {
+        this.offHeapMaxBytes = offHeapMaxBytes;
+    }
+
+    /**
+     * 设置后堆外存储使用该目录下的内存映射文件（每个命名空间一个文件），否则使用直接内存
+     */
+    public void setOffHeapDirectory(String offHeapDirectory) {
+        this.offHeapDirectory = offHeapDirectory;
+    }
+
+    /**
+     * 堆外存储的编解码实现类名，默认为EntityCodec，也可使用JavaSerializationCodec
+     */
+    public void setCodec(String codecType) {
+        try {
+            this.codec = (CacheCodec) Resources.classForName(codecType).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new CacheException("无法创建缓存编解码 " + codecType + "，原因: " + e, e);
+        }
+    }
+
+    /**
+     * 根据属性计算各区域容量，CacheBuilder设置属性后会再次调用
+     */
+    @Override
+    public void initialize() {
+        if (maximumWeight <= 0 || windowPercent <= 0 || windowPercent >= 100) {
+            throw new IllegalArgumentException("maximumWeight必须大于0，windowPercent必须在1到99之间");
+        }
+        evictionLock.lock();
+        try {
+            clearQuietly();
+            sketch = new FrequencySketch(maximumWeight / ASSUMED_ENTRY_WEIGHT);
+            windowMaximum = Math.max(1, maximumWeight * windowPercent / 100);
+            // 主区中保护区占80%
+            protectedMaximum = (maximumWeight - windowMaximum) * 80 / 100;
+            if (offHeap != null) {
+                offHeap.close();
+            }
+            offHeap = offHeapMaxBytes > 0 ? new OffHeapStore(offHeapMaxBytes,
+                    offHeapDirectory == null ? null : new File(offHeapDirectory, id + ".offheap")) : null;
+        } finally {
+            evictionLock.unlock();
+        }
+        statistics.bind(this);
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public void putObject(Object key, Object value) {
+        if (value == null) {
+            // 事务提交时未加载的键会写入null，不缓存
+            statistics.recordPut(key, null);
+            return;
+        }
+        long weight = NODE_OVERHEAD + ObjectSizeEstimator.estimate(key) + ObjectSizeEstimator.estimate(value);
+        OffHeapStore store = offHeap;
+        if (weight > maximumWeight - windowMaximum) {
+            // 超过主区容量的条目不缓存，堆内和堆外的旧值都要删除，否则旧值会在新值写入后重新命中；
+            // 先删除堆内（使进行中的转入堆外失效）再删除堆外
+            remove(key);
+            if (store != null) {
+                store.remove(key);
+            }
+            return;
+        }
+        long expiresAt = ttlSeconds > 0 ? System.nanoTime() + ttlSeconds * 1_000_000_000L : Long.MAX_VALUE;
+        if (store != null) {
+            // 堆外的旧值不能在新值过期后重新可见
+            store.remove(key);
+        }
+        insert(new Node(key, value, weight, expiresAt), -1);
+        statistics.recordPut(key, value);
+    }
+
+    /**
+     * 写入堆内；epoch不为-1时（从堆外晋升）只有期间没有删除或清空才写入
+     */
+    private boolean insert(Node node, long epoch) {
+        evictionLock.lock();
+        try {
+            if (epoch != -1 && (epoch != invalidations.get() || data.containsKey(node.key))) {
+                return false;
+            }
+            drainReadBuffer();
+            Node previous = data.put(node.key, node);
+            if (previous != null) {
+                unlink(previous);
+            }
+            sketch.increment(node.key);
+            window.addLast(node);
+            node.queue = WINDOW;
+            windowWeight += node.weight;
+            weightedSize += node.weight;
+            evict();
+            expireFromHeads();
+        } finally {
+            evictionLock.unlock();
+        }
+        demotePending();
+        return true;
+    }
+
+    @Override
+    public Object getObject(Object key) {
+        Node node = data.get(key);
+        if (node == null) {
+            return offHeap == null ? miss(key) : promote(key);
+        }
+        if (node.isExpired(System.nanoTime())) {
+            statistics.recordMiss(key);
+            if (evictionLock.tryLock()) {
+                try {
+                    if (data.remove(key, node)) {
+                        unlink(node);
+                        statistics.recordExpiration();
+                    }
+                } finally {
+                    evictionLock.unlock();
+                }
+            }
+            return null;
+        }
+        recordRead(node);
+        statistics.recordHit();
+        return node.value;
+    }
+
+    @Override
+    public Object removeObject(Object key) {
+        statistics.recordRemoval(key);
+        Node node = remove(key);
+        OffHeapStore store = offHeap;
+        if (store != null) {
+            store.remove(key);
+        }
+        return node == null ? null : node.value;
+    }
+
+    @Override
+    public void clear() {
+        statistics.recordClear();
+        evictionLock.lock();
+        try {
+            invalidations.incrementAndGet();
+            clearQuietly();
+        } finally {
+            evictionLock.unlock();
+        }
+        OffHeapStore store = offHeap;
+        if (store != null) {
+            store.clear();
+        }
+    }
+
+    /**
+     * 堆内和堆外的条目总数
+     */
+    @Override
+    public int getSize() {
+        OffHeapStore store = offHeap;
+        return data.size() + (store == null ? 0 : store.size());
+    }
+
+    /**
+     * 当前所有条目的估算大小（字节）
+     */
+    public long getWeightedSize() {
+        return weightedSize;
+    }
+
+    public long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    public int getOffHeapSize() {
+        OffHeapStore store = offHeap;
+        return store == null ? 0 : store.size();
+    }
+
+    /**
+     * 堆外有效条目占用的字节数，未启用时为0
+     */
+    public long getOffHeapUsedBytes() {
+        OffHeapStore store = offHeap;
+        return store == null ? 0 : store.getUsedBytes();
+    }
+
+    private Object miss(Object key) {
+        statistics.recordMiss(key);
+        return null;
+    }
+
+    /**
+     * 堆外命中时反序列化并移回堆内，堆外的副本随之删除
+     */
+    private Object promote(Object key) {
+        OffHeapStore store = offHeap;
+        long epoch = invalidations.get();
+        OffHeapStore.Entry entry = store.get(key);
+        if (entry == null) {
+            return miss(key);
+        }
+        if (System.nanoTime() - entry.getExpiresAt() > 0) {
+            if (store.remove(key)) {
+                statistics.recordExpiration();
+            }
+            return miss(key);
+        }
+        Object value;
+        try {
+            value = codec.decode(entry.getData());
+        } catch (RuntimeException e) {
+            logger.warn("缓存 {} 的堆外条目无法反序列化，已丢弃: {}", id, e.getMessage());
+            store.remove(key);
+            return miss(key);
+        }
+        long weight = NODE_OVERHEAD + ObjectSizeEstimator.estimate(key) + ObjectSizeEstimator.estimate(value);
+        if (weight <= maximumWeight - windowMaximum
+                && insert(new Node(key, value, weight, entry.getExpiresAt()), epoch)) {
+            store.remove(key);
+        }
+        statistics.recordHit();
+        statistics.recordOffHeapHit();
+        return value;
+    }
+
+    /**
+     * 在锁外把从堆内淘汰的条目序列化后写入堆外，无法序列化的条目直接丢弃
+     */
+    private void demotePending() {
+        OffHeapStore store = offHeap;
+        if (store == null) {
+            return;
+        }
+        List<Node> nodes;
+        evictionLock.lock();
+        try {
+            if (pendingDemotions.isEmpty()) {
+                return;
+            }
+            nodes = pendingDemotions;
+            pendingDemotions = new ArrayList<>();
+        } finally {
+            evictionLock.unlock();
+        }
+        for (Node node : nodes) {
+            byte[] bytes;
+            try {
+                bytes = codec.encode(node.value);
+            } catch (RuntimeException e) {
+                logger.debug("缓存 {} 的条目无法序列化，不转入堆外: {}", id, e.getMessage());
+                statistics.recordEviction();
+                continue;
+            }
+            int evicted = store.put(node.key, bytes, node.expiresAt,
+                    () -> node.demotionEpoch == invalidations.get());
+            for (int i = 0; i < evicted; i++) {
+                statistics.recordEviction();
+            }
+        }
+    }
+
+    private Node remove(Object key) {
+        evictionLock.lock();
+        try {
+            invalidations.incrementAndGet();
+            Node node = data.remove(key);
+            if (node != null) {
+                unlink(node);
+            }
+            return node;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void clearQuietly() {
+        // 清空前已被读取的节点仍可能进入读缓冲区，标记为已删除，避免处理访问记录时重新链入或重复扣减容量
+        for (Node node : data.values()) {
+            node.removed = true;
+            node.prev = null;
+            node.next = null;
+        }
+        data.clear();
+        pendingDemotions.clear();
+        for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+            readBuffer.set(i, null);
+        }
+        window.clear();
+        probation.clear();
+        protectedDeque.clear();
+        windowWeight = 0;
+        protectedWeight = 0;
+        weightedSize = 0;
+    }
+
+    /**
+     * 读操作只把节点写入环形缓冲区，缓冲区写满一轮时尝试获取锁批量处理；
+     * 获取不到锁时直接返回，丢失的访问记录只影响淘汰精度
+     */
+    private void recordRead(Node node) {
+        long index = readCounter.getAndIncrement();
+        readBuffer.lazySet((int) (index & READ_BUFFER_MASK), node);
+        if ((index & READ_BUFFER_MASK) == READ_BUFFER_MASK && evictionLock.tryLock()) {
+            try {
+                drainReadBuffer();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    private void drainReadBuffer() {
+        for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+            Node node = readBuffer.getAndSet(i, null);
+            if (node != null && !node.removed) {
+                onAccess(node);
+            }
+        }
+    }
+
+    private void onAccess(Node node) {
+        sketch.increment(node.key);
+        if (node.queue == WINDOW) {
+            window.moveToLast(node);
+        } else if (node.queue == PROBATION) {
+            // 试用区条目再次被访问，晋升到保护区
+            probation.remove(node);
+            protectedDeque.addLast(node);
+            node.queue = PROTECTED;
+            protectedWeight += node.weight;
+            demoteProtectedOverflow();
+        } else {
+            protectedDeque.moveToLast(node);
+        }
+    }
+
+    private void demoteProtectedOverflow() {
+        while (protectedWeight > protectedMaximum) {
+            Node demoted = protectedDeque.pollFirst();
+            if (demoted == null) {
+                return;
+            }
+            protectedWeight -= demoted.weight;
+            probation.addLast(demoted);
+            demoted.queue = PROBATION;
+        }
+    }
+
+    /**
+     * 窗口区超出容量时，把最久未访问的条目作为候选移入主区；
+     * 主区已满时候选与主区最久未访问的条目比较频率，频率低的被淘汰
+     */
+    private void evict() {
+        while (windowWeight > windowMaximum) {
+            Node candidate = window.pollFirst();
+            windowWeight -= candidate.weight;
+            int candidateFrequency = sketch.frequency(candidate.key);
+            boolean admitted = true;
+            while (weightedSize > maximumWeight) {
+                Node victim = probation.peekFirst() != null ? probation.peekFirst() : protectedDeque.peekFirst();
+                if (victim == null) {
+                    break;
+                }
+                if (candidateFrequency <= sketch.frequency(victim.key)) {
+                    admitted = false;
+                    break;
+                }
+                evictNode(victim);
+            }
+            if (admitted) {
+                probation.addLast(candidate);
+                candidate.queue = PROBATION;
+            } else {
+                // 候选已从窗口取出，直接丢弃
+                candidate.queue = PROBATION;
+                evictNode(candidate);
+            }
+        }
+    }
+
+    private void evictNode(Node node) {
+        if (data.remove(node.key, node)) {
+            if (offHeap != null) {
+                // 转入堆外，不算淘汰；记录当前版本，之后有删除或清空时放弃转入
+                node.demotionEpoch = invalidations.get();
+                pendingDemotions.add(node);
+            } else {
+                statistics.recordEviction();
+            }
+        }
+        unlink(node);
+    }
+
+    /**
+     * 清理各区域头部已过期的条目，每次最多检查少量节点，避免写操作耗时过长
+     */
+    private void expireFromHeads() {
+        if (ttlSeconds <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        expireFrom(window, now);
+        expireFrom(probation, now);
+        expireFrom(protectedDeque, now);
+    }
+
+    private void expireFrom(AccessOrderDeque deque, long now) {
+        for (int i = 0; i < EXPIRE_SCAN_LIMIT; i++) {
+            Node head = deque.peekFirst();
+            if (head == null || !head.isExpired(now)) {
+                return;
+            }
+            if (data.remove(head.key, head)) {
+                statistics.recordExpiration();
+            }
+            unlink(head);
+        }
+    }
+
+    /**
+     * 把节点从所在区域摘除并扣减容量，可重复调用
+     */
+    private void unlink(Node node) {
+        if (node.removed) {
+            return;
+        }
+        node.removed = true;
+        if (node.queue == WINDOW) {
+            if (window.contains(node)) {
+                window.remove(node);
+                windowWeight -= node.weight;
+            }
+        } else if (node.queue == PROBATION) {
+            probation.remove(node);
+        } else {
+            protectedDeque.remove(node);
+            protectedWeight -= node.weight;
+        }
+        weightedSize -= node.weight;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Cache)) {
+            return false;
+        }
+        return id.equals(((Cache) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return id.hashCode();
+    }
+
+    private static final class Node {
+        final Object key;
+        final Object value;
+        final long weight;
+        final long expiresAt;
+        // 以下字段只在持有evictionLock时修改
+        Node prev;
+        Node next;
+        int queue;
+        long demotionEpoch;
+        volatile boolean removed;
+
+        Node(Object key, Object value, long weight, long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return now - expiresAt > 0;
+        }
+    }
+
+    /**
+     * 按访问顺序排列的双向链表，头部为最久未访问
+     */
+    private static final class AccessOrderDeque {
+        private Node head;
+        private Node tail;
+
+        Node peekFirst() {
+            return head;
+        }
+
+        Node pollFirst() {
+            Node first = head;
+            if (first != null) {
+                remove(first);
+            }
+            return first;
+        }
+
+        void addLast(Node node) {
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+        }
+
+        void moveToLast(Node node) {
+            if (node != tail && contains(node)) {
+                remove(node);
+                addLast(node);
+            }
+        }
+
+        boolean contains(Node node) {
+            return node.prev != null || node.next != null || head == node;
+        }
+
+        void remove(Node node) {
+            if (node.prev == null) {
+                if (head == node) {
+                    head = node.next;
+                }
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                if (tail == node) {
+                    tail = node.prev;
+                }
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+        }
+
+        void clear() {
+            head = null;
+            tail = null;
+        }
+    }
+}
\ No newline at end of file
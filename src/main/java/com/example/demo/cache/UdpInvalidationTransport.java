@@ -0,0 +1,100 @@
+package com.example.demo.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.Consumer;
+
+/**
+ * 基于UDP单播的传输：本节点监听 bind 地址，并把消息逐个发送给 peers 中的节点
+ * 同一台机器上的多个JVM使用不同端口即可组成集群，例如
+ * bind=127.0.0.1:47001，peers=127.0.0.1:47002,127.0.0.1:47003
+ */
+public class UdpInvalidationTransport implements InvalidationTransport {
+    private static final Logger logger = LoggerFactory.getLogger(UdpInvalidationTransport.class);
+    private static final int MAX_PACKET_SIZE = 65507;
+
+    private final List<InetSocketAddress> peers = new ArrayList<>();
+    private DatagramSocket socket;
+    private Thread receiverThread;
+    private volatile boolean running;
+
+    @Override
+    public void start(Properties properties, Consumer<byte[]> receiver) throws IOException {
+        InetSocketAddress bind = parseAddress(properties.getProperty("bind", "127.0.0.1:47000"));
+        for (String peer : properties.getProperty("peers", "").split(",")) {
+            if (!peer.trim().isEmpty()) {
+                InetSocketAddress address = parseAddress(peer);
+                if (!address.equals(bind)) {
+                    peers.add(address);
+                }
+            }
+        }
+        socket = new DatagramSocket(bind);
+        running = true;
+        receiverThread = new Thread(() -> receive(receiver), "cache-invalidation-udp-" + bind.getPort());
+        receiverThread.setDaemon(true);
+        receiverThread.start();
+        logger.info("缓存失效UDP传输监听 {}，节点 {}", bind, peers);
+    }
+
+    @Override
+    public void send(byte[] message) {
+        if (message.length > MAX_PACKET_SIZE) {
+            throw new IllegalArgumentException("失效消息超过UDP报文上限：" + message.length);
+        }
+        for (InetSocketAddress peer : peers) {
+            try {
+                socket.send(new DatagramPacket(message, message.length, peer));
+            } catch (IOException e) {
+                // 发送失败等同于丢包，由接收方的序号检查兜底
+                logger.warn("发送缓存失效消息到 {} 失败：{}", peer, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        if (socket != null) {
+            socket.close();
+        }
+    }
+
+    private void receive(Consumer<byte[]> receiver) {
+        byte[] buffer = new byte[MAX_PACKET_SIZE];
+        while (running) {
+            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            try {
+                socket.receive(packet);
+                receiver.accept(Arrays.copyOfRange(packet.getData(), packet.getOffset(),
+                        packet.getOffset() + packet.getLength()));
+            } catch (SocketException e) {
+                if (running) {
+                    logger.error("缓存失效UDP传输异常", e);
+                }
+                return;
+            } catch (Exception e) {
+                logger.error("处理缓存失效消息失败", e);
+            }
+        }
+    }
+
+    private static InetSocketAddress parseAddress(String address) {
+        String trimmed = address.trim();
+        int colon = trimmed.lastIndexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("地址格式应为 host:port：" + address);
+        }
+        return new InetSocketAddress(trimmed.substring(0, colon), Integer.parseInt(trimmed.substring(colon + 1)));
+    }
+}
\ No newline at end of file
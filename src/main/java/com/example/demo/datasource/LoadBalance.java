@@ -0,0 +1,27 @@
+package com.example.demo.datasource;
+
+/**
+ * 从库选择策略
+ */
+public enum LoadBalance {
+    /** 依次轮询健康的从库 */
+    ROUND_ROBIN,
+    /** 选择当前借出连接最少的健康从库 */
+    LEAST_CONNECTIONS;
+
+    /**
+     * 解析配置值，支持 roundRobin / leastConnections 以及枚举名
+     */
+    public static LoadBalance parse(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return ROUND_ROBIN;
+        }
+        String normalized = value.trim().replace("_", "").replace("-", "");
+        for (LoadBalance loadBalance : values()) {
+            if (loadBalance.name().replace("_", "").equalsIgnoreCase(normalized)) {
+                return loadBalance;
+            }
+        }
+        throw new IllegalArgumentException("不支持的负载均衡策略: " + value);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,209 @@
+package com.example.demo.datasource;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Locale;
+
+/**
+ * 读写分离数据源返回的逻辑连接
+ * 主库和从库的物理连接都在第一次需要时才获取；autoCommit、隔离级别等设置先记录下来，
+ * 获取物理连接时再应用。一个逻辑连接最多使用一个从库连接，保证同一会话内读到的数据一致。
+ */
+class ReadWriteConnection implements InvocationHandler {
+    private final ReadWriteDataSource dataSource;
+
+    private Connection primary;
+    private ReadWriteDataSource.ReplicaConnection replica;
+    // 没有可用从库时只尝试一次，之后的读都走主库
+    private boolean replicaUnavailable;
+    // 当前事务已经在主库写过，读操作留在主库
+    private boolean stickToPrimary;
+    private boolean closed;
+
+    private Boolean autoCommit;
+    private Integer transactionIsolation;
+
+    ReadWriteConnection(ReadWriteDataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        switch (name) {
+            case "prepareStatement":
+                return invoke(route((String) args[0]), method, args);
+            case "prepareCall":
+            case "createStatement":
+                // 存储过程和不带SQL的Statement无法判断读写，按写处理
+                return invoke(primaryForWrite(), method, args);
+            case "setAutoCommit":
+                autoCommit = (Boolean) args[0];
+                applyToOpened(method, args);
+                return null;
+            case "getAutoCommit":
+                // 未设置时按JDBC默认值返回，避免只为查询设置而获取主库连接
+                return autoCommit != null ? autoCommit : Boolean.TRUE;
+            case "setTransactionIsolation":
+                transactionIsolation = (Integer) args[0];
+                applyToOpened(method, args);
+                return null;
+            case "commit":
+            case "rollback":
+                if (args == null || args.length == 0) {
+                    endTransaction(method);
+                    return null;
+                }
+                return invoke(current(), method, args);
+            case "close":
+                close();
+                return null;
+            case "isClosed":
+                return closed;
+            case "unwrap":
+                return ((Class<?>) args[0]).isInstance(proxy) ? proxy : invoke(current(), method, args);
+            case "isWrapperFor":
+                return ((Class<?>) args[0]).isInstance(proxy) || (Boolean) invoke(current(), method, args);
+            case "toString":
+                return "ReadWriteConnection[primary=" + primary + ", replica="
+                        + (replica == null ? null : replica.node.getName()) + "]";
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            default:
+                return invoke(current(), method, args);
+        }
+    }
+
+    /**
+     * 可以读从库的SELECT发往从库，其他语句发往主库并让当前事务后续的读留在主库
+     */
+    private Connection route(String sql) throws SQLException {
+        if (!isReplicaRead(sql)) {
+            return primaryForWrite();
+        }
+        if (!stickToPrimary && !replicaUnavailable) {
+            if (replica == null) {
+                replica = dataSource.openReplica();
+                if (replica == null) {
+                    replicaUnavailable = true;
+                } else {
+                    applySettings(replica.connection);
+                }
+            }
+            if (replica != null) {
+                replica.node.recordRouted();
+                return replica.connection;
+            }
+        }
+        dataSource.recordPrimaryStatement();
+        return primary();
+    }
+
+    static boolean isReplicaRead(String sql) {
+        int start = 0;
+        while (start < sql.length() && (Character.isWhitespace(sql.charAt(start)) || sql.charAt(start) == '(')) {
+            start++;
+        }
+        if (!sql.regionMatches(true, start, "select", 0, 6)) {
+            return false;
+        }
+        String lower = sql.toLowerCase(Locale.ROOT);
+        return !lower.contains("for update") && !lower.contains("lock in share mode") && !lower.contains("for share");
+    }
+
+    private Connection primaryForWrite() throws SQLException {
+        stickToPrimary = true;
+        dataSource.recordPrimaryStatement();
+        return primary();
+    }
+
+    private Connection primary() throws SQLException {
+        if (primary == null) {
+            primary = dataSource.getPrimary().getConnection();
+            applySettings(primary);
+        }
+        return primary;
+    }
+
+    /**
+     * 未指定目标的方法使用已获取的物理连接，都没有时使用主库
+     */
+    private Connection current() throws SQLException {
+        if (primary != null || replica == null) {
+            return primary();
+        }
+        return replica.connection;
+    }
+
+    private void applySettings(Connection connection) throws SQLException {
+        if (autoCommit != null && connection.getAutoCommit() != autoCommit) {
+            connection.setAutoCommit(autoCommit);
+        }
+        if (transactionIsolation != null) {
+            connection.setTransactionIsolation(transactionIsolation);
+        }
+    }
+
+    private void applyToOpened(Method method, Object[] args) throws Throwable {
+        if (primary != null) {
+            invoke(primary, method, args);
+        }
+        if (replica != null) {
+            invoke(replica.connection, method, args);
+        }
+    }
+
+    /**
+     * 提交或回滚主库；从库只有读操作，一起结束以释放快照
+     */
+    private void endTransaction(Method method) throws Throwable {
+        try {
+            if (primary != null && !primary.getAutoCommit()) {
+                invoke(primary, method, null);
+            }
+            if (replica != null && !replica.connection.getAutoCommit()) {
+                invoke(replica.connection, method, null);
+            }
+        } finally {
+            stickToPrimary = false;
+        }
+    }
+
+    private void close() throws SQLException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        SQLException failure = null;
+        if (primary != null) {
+            try {
+                primary.close();
+            } catch (SQLException e) {
+                failure = e;
+            }
+        }
+        if (replica != null) {
+            try {
+                replica.close();
+            } catch (SQLException e) {
+                failure = failure == null ? e : failure;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static Object invoke(Connection target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
\ No newline at end of file
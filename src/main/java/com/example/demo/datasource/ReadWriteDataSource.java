@@ -0,0 +1,232 @@
+package com.example.demo.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 读写分离数据源
+ * 返回的连接在执行语句时才决定使用主库还是从库：SELECT（不含 FOR UPDATE 等加锁读）发往从库，
+ * 其他语句发往主库；当前事务中已经在主库执行过写操作后，后续读操作也留在主库，直到提交或回滚。
+ * 从库由后台线程定期执行检测语句，失败的从库不再分配；获取从库连接失败时换下一个从库，
+ * 全部不可用时读主库。
+ */
+public class ReadWriteDataSource implements DataSource {
+    private static final Logger logger = LoggerFactory.getLogger(ReadWriteDataSource.class);
+
+    private final DataSource primary;
+    private final List<ReplicaNode> replicas;
+    private final LoadBalance loadBalance;
+    private final String validationQuery;
+    private final AtomicInteger roundRobin = new AtomicInteger();
+    private final LongAdder primaryStatements = new LongAdder();
+    private final ScheduledExecutorService healthChecker;
+
+    public ReadWriteDataSource(DataSource primary, List<ReplicaNode> replicas, LoadBalance loadBalance,
+                               String validationQuery, long healthCheckMillis) {
+        this.primary = primary;
+        this.replicas = Collections.unmodifiableList(new ArrayList<>(replicas));
+        this.loadBalance = loadBalance;
+        this.validationQuery = validationQuery;
+        this.healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (healthCheckMillis > 0) {
+            healthChecker.scheduleWithFixedDelay(this::checkReplicas, healthCheckMillis, healthCheckMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+        logger.info("读写分离数据源：从库 {}，负载均衡 {}", this.replicas, loadBalance);
+    }
+
+    @Override
+    public Connection getConnection() {
+        return (Connection) Proxy.newProxyInstance(ReadWriteDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ReadWriteConnection(this));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) {
+        // 各库的账号在配置中指定
+        return getConnection();
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    public List<ReplicaNode> getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * 发往主库的语句数（写操作、事务内写后读、无可用从库时的读）
+     */
+    public long getPrimaryStatements() {
+        return primaryStatements.sum();
+    }
+
+    void recordPrimaryStatement() {
+        primaryStatements.increment();
+    }
+
+    /**
+     * 立即检测所有从库，返回健康的从库数
+     */
+    public int checkReplicas() {
+        int healthy = 0;
+        for (ReplicaNode replica : replicas) {
+            String error = validate(replica);
+            if (replica.setHealthy(error == null, error)) {
+                if (error == null) {
+                    logger.info("从库 {} 恢复可用", replica.getName());
+                } else {
+                    logger.warn("从库 {} 不可用：{}", replica.getName(), error);
+                }
+            }
+            if (error == null) {
+                healthy++;
+            }
+        }
+        return healthy;
+    }
+
+    /**
+     * 停止健康检查线程
+     */
+    public void close() {
+        healthChecker.shutdownNow();
+    }
+
+    /**
+     * 获取从库连接，失败的从库标记为不可用后换下一个；没有可用从库时返回null
+     */
+    ReplicaConnection openReplica() {
+        for (int attempt = 0; attempt < replicas.size(); attempt++) {
+            ReplicaNode replica = choose();
+            if (replica == null) {
+                return null;
+            }
+            try {
+                Connection connection = replica.getDataSource().getConnection();
+                replica.activeConnectionCounter().incrementAndGet();
+                return new ReplicaConnection(replica, connection);
+            } catch (SQLException e) {
+                if (replica.setHealthy(false, e.getMessage())) {
+                    logger.warn("从库 {} 获取连接失败，切换到其他从库：{}", replica.getName(), e.getMessage());
+                }
+            }
+        }
+        return null;
+    }
+
+    private ReplicaNode choose() {
+        if (loadBalance == LoadBalance.LEAST_CONNECTIONS) {
+            ReplicaNode best = null;
+            for (ReplicaNode replica : replicas) {
+                if (replica.isHealthy()
+                        && (best == null || replica.getActiveConnections() < best.getActiveConnections())) {
+                    best = replica;
+                }
+            }
+            return best;
+        }
+        int start = Math.floorMod(roundRobin.getAndIncrement(), Math.max(1, replicas.size()));
+        for (int i = 0; i < replicas.size(); i++) {
+            ReplicaNode replica = replicas.get((start + i) % replicas.size());
+            if (replica.isHealthy()) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private String validate(ReplicaNode replica) {
+        try (Connection connection = replica.getDataSource().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(5);
+            try (ResultSet resultSet = statement.executeQuery(validationQuery)) {
+                resultSet.next();
+            }
+            return null;
+        } catch (SQLException e) {
+            return e.getMessage();
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return primary.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        primary.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        primary.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return primary.getLoginTimeout();
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("不是 " + iface.getName() + " 的包装类");
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    /**
+     * 借出的从库连接，关闭时归还并扣减计数
+     */
+    static final class ReplicaConnection {
+        final ReplicaNode node;
+        final Connection connection;
+
+        ReplicaConnection(ReplicaNode node, Connection connection) {
+            this.node = node;
+            this.connection = connection;
+        }
+
+        void close() throws SQLException {
+            try {
+                connection.close();
+            } finally {
+                node.activeConnectionCounter().decrementAndGet();
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,76 @@
+package com.example.demo.datasource;
+
+import org.apache.ibatis.datasource.DataSourceFactory;
+import org.apache.ibatis.datasource.pooled.PooledDataSourceFactory;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * 读写分离数据源工厂，用法：<dataSource type="com.example.demo.datasource.ReadWriteDataSourceFactory">
+ * driver/url/username/password 及连接池属性与 POOLED 相同，用于主库；
+ * replica.urls 为逗号分隔的从库地址，为空时直接返回主库连接池；
+ * replica.username/replica.password 为空时使用主库账号，从库连接池属性与主库相同。
+ * replica.loadBalance：roundRobin（默认）或 leastConnections；
+ * replica.healthCheckMillis：健康检查间隔，默认5000，0表示不检查；
+ * replica.validationQuery：检测语句，默认 SELECT 1。
+ */
+public class ReadWriteDataSourceFactory implements DataSourceFactory {
+    private static final String REPLICA_PREFIX = "replica.";
+
+    private DataSource dataSource;
+
+    @Override
+    public void setProperties(Properties properties) {
+        Properties primaryProperties = new Properties();
+        Properties replicaSettings = new Properties();
+        for (String name : properties.stringPropertyNames()) {
+            if (name.startsWith(REPLICA_PREFIX)) {
+                replicaSettings.setProperty(name.substring(REPLICA_PREFIX.length()), properties.getProperty(name));
+            } else {
+                primaryProperties.setProperty(name, properties.getProperty(name));
+            }
+        }
+        DataSource primary = pooled(primaryProperties);
+        List<ReplicaNode> replicas = new ArrayList<>();
+        int index = 1;
+        for (String url : replicaSettings.getProperty("urls", "").split(",")) {
+            if (url.trim().isEmpty()) {
+                continue;
+            }
+            Properties replicaProperties = new Properties();
+            replicaProperties.putAll(primaryProperties);
+            replicaProperties.setProperty("url", url.trim());
+            overrideIfPresent(replicaProperties, "username", replicaSettings.getProperty("username"));
+            overrideIfPresent(replicaProperties, "password", replicaSettings.getProperty("password"));
+            replicas.add(new ReplicaNode("replica-" + index++ + "[" + url.trim() + "]", pooled(replicaProperties)));
+        }
+        if (replicas.isEmpty()) {
+            dataSource = primary;
+            return;
+        }
+        dataSource = new ReadWriteDataSource(primary, replicas,
+                LoadBalance.parse(replicaSettings.getProperty("loadBalance")),
+                replicaSettings.getProperty("validationQuery", "SELECT 1"),
+                Long.parseLong(replicaSettings.getProperty("healthCheckMillis", "5000")));
+    }
+
+    @Override
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    private static DataSource pooled(Properties properties) {
+        PooledDataSourceFactory factory = new PooledDataSourceFactory();
+        factory.setProperties(properties);
+        return factory.getDataSource();
+    }
+
+    private static void overrideIfPresent(Properties properties, String name, String value) {
+        if (value != null && !value.isEmpty()) {
+            properties.setProperty(name, value);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,70 @@
+package com.example.demo.datasource;
+
+import javax.sql.DataSource;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个从库：连接池、健康状态和路由计数
+ */
+public class ReplicaNode {
+    private final String name;
+    private final DataSource dataSource;
+    private final AtomicInteger activeConnections = new AtomicInteger();
+    private final LongAdder routedStatements = new LongAdder();
+    private volatile boolean healthy = true;
+    private volatile String lastError;
+
+    public ReplicaNode(String name, DataSource dataSource) {
+        this.name = name;
+        this.dataSource = dataSource;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    /**
+     * 更新健康状态，返回状态是否发生变化
+     */
+    boolean setHealthy(boolean healthy, String error) {
+        this.lastError = error;
+        boolean changed = this.healthy != healthy;
+        this.healthy = healthy;
+        return changed;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public int getActiveConnections() {
+        return activeConnections.get();
+    }
+
+    AtomicInteger activeConnectionCounter() {
+        return activeConnections;
+    }
+
+    public long getRoutedStatements() {
+        return routedStatements.sum();
+    }
+
+    void recordRouted() {
+        routedStatements.increment();
+    }
+
+    @Override
+    public String toString() {
+        return name + (healthy ? "(UP" : "(DOWN") + ", 连接=" + activeConnections.get()
+                + ", 语句=" + routedStatements.sum() + ")";
+    }
+}
\ No newline at end of file
@@ -1,15 +1,27 @@
 package com.example.demo.mapper;
 
 import com.example.demo.entity.Department;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.ResultHandler;
+import java.util.Collection;
 import java.util.List;
 
 public interface DepartmentMapper {
     // 根据ID查询部门
     Department selectById(Long id);
 
+    // 根据用户ID查询其所在部门
+    Department selectByUserId(Long userId);
+
+    // 根据ID集合批量查询部门
+    List<Department> selectByIds(Collection<Long> ids);
+
     // 查询所有部门
     List<Department> selectAll();
 
+    // 按ID顺序查询所有部门，用于加载部门引用缓存
+    List<Department> selectAllForReference();
+
     // 插入部门
     int insert(Department department);
 
@@ -19,9 +31,21 @@ public interface DepartmentMapper {
     // 根据ID删除部门
     int deleteById(Long id);
 
+    // 根据ID集合批量删除部门
+    int deleteByIds(Collection<Long> ids);
+
+    // 删除没有用户的部门
+    int deleteWithoutUsers();
+
     // 根据ID查询部门及其关联的用户（一对多关系）
     Department selectWithUsers(Long id);
 
     // 查询所有部门及其关联的用户（一对多关系）
     List<Department> selectAllWithUsers();
+
+    // 流式查询所有部门及其用户（游标方式，每个部门的用户组装完成后返回）
+    Cursor<Department> streamAllWithUsers();
+
+    // 流式查询所有部门及其用户（回调方式）
+    void streamAllWithUsers(ResultHandler<Department> handler);
 }
\ No newline at end of file
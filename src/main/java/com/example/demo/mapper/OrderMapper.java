@@ -1,30 +1,64 @@
 package com.example.demo.mapper;
 
 import com.example.demo.entity.Order;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.ResultHandler;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 public interface OrderMapper {
     // 根据ID查询订单
     Order selectById(Long id);
 
+    // 根据ID集合批量查询订单
+    List<Order> selectByIds(Collection<Long> ids);
+
     // 查询所有订单
     List<Order> selectAll();
 
+    // 流式查询所有订单（游标方式，需在SqlSession关闭前遍历完）
+    Cursor<Order> streamAll();
+
+    // 流式查询所有订单（回调方式）
+    void streamAll(ResultHandler<Order> handler);
+
     // 插入订单
     int insert(Order order);
 
+    // 批量插入订单（多值INSERT，回填自增ID）
+    int insertBatch(List<Order> orders);
+
     // 更新订单
     int update(Order order);
 
     // 根据ID删除订单
     int deleteById(Long id);
 
+    // 根据ID集合批量删除订单
+    int deleteByIds(Collection<Long> ids);
+
+    // 删除用户集合的所有订单
+    int deleteByUserIds(Collection<Long> userIds);
+
+    // 删除下单时间早于cutoff的订单
+    int deleteByOrderTimeBefore(Date cutoff);
+
     // 根据用户ID查询订单（一对多关系）
     List<Order> selectByUserId(Long userId);
 
+    // 根据用户ID集合批量查询订单
+    List<Order> selectByUserIds(Collection<Long> userIds);
+
     // 根据ID查询订单及其关联的用户（多对一关系）
     Order selectWithUser(Long id);
 
     // 查询所有订单及其关联的用户（多对一关系）
     List<Order> selectAllWithUser();
+
+    // 流式查询所有订单及其关联的用户（游标方式）
+    Cursor<Order> streamAllWithUser();
+
+    // 流式查询所有订单及其关联的用户（回调方式）
+    void streamAllWithUser(ResultHandler<Order> handler);
 }
\ No newline at end of file
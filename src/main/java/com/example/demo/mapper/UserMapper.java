@@ -2,30 +2,57 @@ package com.example.demo.mapper;
 
 import com.example.demo.entity.User;
 import com.example.demo.utils.PageParam;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.ResultHandler;
+import java.util.Collection;
 import java.util.List;
 
 public interface UserMapper {
     // 根据ID查询用户
     User selectById(Long id);
 
+    // 根据ID集合批量查询用户
+    List<User> selectByIds(Collection<Long> ids);
+
     // 查询所有用户
     List<User> selectAll();
 
+    // 流式查询所有用户（游标方式，需在SqlSession关闭前遍历完）
+    Cursor<User> streamAll();
+
+    // 流式查询所有用户（回调方式）
+    void streamAll(ResultHandler<User> handler);
+
     // 分页查询用户
     List<User> selectByPage(PageParam pageParam);
 
+    // 游标分页查询用户（按ID定位）
+    List<User> selectByCursor(PageParam pageParam);
+
     // 查询用户总数
     long selectCount();
 
+    // 根据表统计信息估算用户总数，统计信息不可用时返回null
+    Long selectEstimatedCount();
+
     // 插入用户
     int insert(User user);
 
+    // 批量插入用户（多值INSERT，回填自增ID）
+    int insertBatch(List<User> users);
+
     // 更新用户
     int update(User user);
 
     // 根据ID删除用户
     int deleteById(Long id);
 
+    // 根据ID集合批量删除用户
+    int deleteByIds(Collection<Long> ids);
+
+    // 删除部门下的所有用户
+    int deleteByDepartmentId(Long departmentId);
+
     // 根据用户名查询用户
     User selectByUsername(String username);
 
@@ -41,6 +68,12 @@ public interface UserMapper {
     // 查询所有用户及其订单（一对多关系）
     List<User> selectAllWithOrders();
 
+    // 流式查询所有用户及其订单（游标方式，每个用户的订单组装完成后返回）
+    Cursor<User> streamAllWithOrders();
+
+    // 流式查询所有用户及其订单（回调方式）
+    void streamAllWithOrders(ResultHandler<User> handler);
+
     // 根据ID查询用户及其部门和订单（完整关联）
     User selectWithDepartmentAndOrders(Long id);
 
@@ -0,0 +1,256 @@
+package com.example.demo.mapping;
+
+import org.apache.ibatis.reflection.MetaClass;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.TypeHandler;
+import org.apache.ibatis.type.TypeHandlerRegistry;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * 绑定到具体结果集列下标的行映射器
+ * 每行按下标通过TypeHandler读取各列，再用生成的setter赋值；嵌套resultMap按<id>列识别同一对象，
+ * 与MyBatis相同：父对象按首次出现的顺序返回，子对象的标识包含父对象的标识，LEFT JOIN未匹配时集合为空列表。
+ */
+final class CompiledRowMapper {
+    private final ResultMapPlan plan;
+    private final int[] columnIndexes;
+    private final TypeHandler<?>[] typeHandlers;
+    private final BiConsumer<Object, Object>[] setters;
+    private final int[] idSlots;
+    private final CompiledRowMapper[] nestedMappers;
+    private final ResultMapPlan.NestedPlan[] nestedPlans;
+
+    @SuppressWarnings("unchecked")
+    private CompiledRowMapper(ResultMapPlan plan, List<Integer> columnIndexes, List<TypeHandler<?>> typeHandlers,
+                              List<BiConsumer<Object, Object>> setters, List<Integer> idSlots,
+                              CompiledRowMapper[] nestedMappers) {
+        this.plan = plan;
+        this.columnIndexes = columnIndexes.stream().mapToInt(Integer::intValue).toArray();
+        this.typeHandlers = typeHandlers.toArray(new TypeHandler<?>[0]);
+        this.setters = setters.toArray((BiConsumer<Object, Object>[]) new BiConsumer<?, ?>[0]);
+        this.idSlots = idSlots.stream().mapToInt(Integer::intValue).toArray();
+        this.nestedMappers = nestedMappers;
+        this.nestedPlans = plan.nested.toArray(new ResultMapPlan.NestedPlan[0]);
+    }
+
+    /**
+     * 按结果集的列绑定；结果集中不存在的列跳过，与MyBatis只映射存在的列一致
+     */
+    static CompiledRowMapper bind(Configuration configuration, ResultMapPlan plan, ResultSetMetaData metaData,
+                                  Map<String, Integer> columns) throws SQLException {
+        List<Integer> indexes = new ArrayList<>();
+        List<TypeHandler<?>> handlers = new ArrayList<>();
+        List<BiConsumer<Object, Object>> setters = new ArrayList<>();
+        List<Integer> idSlots = new ArrayList<>();
+        Set<String> mappedColumns = new HashSet<>();
+        for (ResultMapPlan.PropertyPlan property : plan.properties) {
+            mappedColumns.add(property.column);
+            Integer index = columns.get(property.column);
+            if (index == null) {
+                continue;
+            }
+            if (property.id) {
+                idSlots.add(indexes.size());
+            }
+            indexes.add(index);
+            handlers.add(property.typeHandler);
+            setters.add(property.setter);
+        }
+        if (plan.autoMapping) {
+            bindAutoMappedColumns(configuration, plan, metaData, columns, mappedColumns,
+                    indexes, handlers, setters);
+        }
+        CompiledRowMapper[] nested = new CompiledRowMapper[plan.nested.size()];
+        for (int i = 0; i < nested.length; i++) {
+            nested[i] = bind(configuration, plan.nested.get(i).plan, metaData, columns);
+        }
+        return new CompiledRowMapper(plan, indexes, handlers, setters, idSlots, nested);
+    }
+
+    /**
+     * 与MyBatis的自动映射相同：未配置的列按驼峰规则找属性，找不到属性或TypeHandler时忽略该列
+     */
+    private static void bindAutoMappedColumns(Configuration configuration, ResultMapPlan plan,
+                                              ResultSetMetaData metaData, Map<String, Integer> columns,
+                                              Set<String> mappedColumns,
+                                              List<Integer> indexes, List<TypeHandler<?>> handlers,
+                                              List<BiConsumer<Object, Object>> setters) throws SQLException {
+        MetaClass metaClass = MetaClass.forClass(plan.type, configuration.getReflectorFactory());
+        TypeHandlerRegistry registry = configuration.getTypeHandlerRegistry();
+        Set<String> mappedProperties = plan.resultMap.getMappedProperties();
+        for (Map.Entry<String, Integer> column : columns.entrySet()) {
+            if (mappedColumns.contains(column.getKey())) {
+                continue;
+            }
+            int index = column.getValue();
+            String property = metaClass.findProperty(metaData.getColumnLabel(index),
+                    configuration.isMapUnderscoreToCamelCase());
+            if (property == null || property.indexOf('.') >= 0 || mappedProperties.contains(property)
+                    || !metaClass.hasSetter(property)) {
+                continue;
+            }
+            Class<?> propertyType = metaClass.getSetterType(property);
+            TypeHandler<?> typeHandler = registry.getTypeHandler(propertyType,
+                    JdbcType.forCode(metaData.getColumnType(index)));
+            if (typeHandler == null) {
+                typeHandler = registry.getTypeHandler(propertyType);
+            }
+            BiConsumer<Object, Object> setter = LambdaAccessors.setter(plan.type, property, propertyType);
+            if (typeHandler != null && setter != null) {
+                indexes.add(index);
+                handlers.add(typeHandler);
+                setters.add(setter);
+            }
+        }
+    }
+
+    /**
+     * 映射结果集的所有行
+     */
+    List<Object> mapAll(ResultSet rs) throws SQLException {
+        List<Object> results = new ArrayList<>();
+        if (nestedMappers.length == 0) {
+            while (rs.next()) {
+                results.add(create(readValues(rs)));
+            }
+            return results;
+        }
+        Map<RowKey, Object> known = new HashMap<>();
+        while (rs.next()) {
+            Object[] values = readValues(rs);
+            RowKey key = rowKey(values, null);
+            Object object = key == null ? null : known.get(key);
+            if (object == null) {
+                object = create(values);
+                if (object != null && key != null) {
+                    known.put(key, object);
+                }
+                results.add(object);
+            }
+            if (object != null) {
+                applyNested(object, rs, key, known);
+            }
+        }
+        return results;
+    }
+
+    private void applyNested(Object owner, ResultSet rs, RowKey ownerKey, Map<RowKey, Object> known)
+            throws SQLException {
+        for (int i = 0; i < nestedMappers.length; i++) {
+            CompiledRowMapper mapper = nestedMappers[i];
+            ResultMapPlan.NestedPlan nestedPlan = nestedPlans[i];
+            Collection<Object> collection = nestedPlan.isCollection() ? collectionOf(owner, nestedPlan) : null;
+            Object[] values = mapper.readValues(rs);
+            RowKey key = mapper.rowKey(values, ownerKey);
+            Object object = key == null ? null : known.get(key);
+            if (object == null) {
+                object = mapper.create(values);
+                if (object == null) {
+                    continue;
+                }
+                if (key != null) {
+                    known.put(key, object);
+                }
+                if (collection != null) {
+                    collection.add(object);
+                } else {
+                    nestedPlan.setter.accept(owner, object);
+                }
+            }
+            mapper.applyNested(object, rs, key, known);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<Object> collectionOf(Object owner, ResultMapPlan.NestedPlan nestedPlan) {
+        Collection<Object> collection = (Collection<Object>) nestedPlan.collectionGetter.apply(owner);
+        if (collection == null) {
+            collection = new ArrayList<>();
+            nestedPlan.setter.accept(owner, collection);
+        }
+        return collection;
+    }
+
+    private Object[] readValues(ResultSet rs) throws SQLException {
+        Object[] values = new Object[columnIndexes.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = typeHandlers[i].getResult(rs, columnIndexes[i]);
+        }
+        return values;
+    }
+
+    /**
+     * 所有列都为null时返回null（LEFT JOIN未匹配），否则创建对象并设置非null的列
+     */
+    private Object create(Object[] values) {
+        Object object = null;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                if (object == null) {
+                    object = plan.constructor.get();
+                }
+                setters[i].accept(object, values[i]);
+            }
+        }
+        return object;
+    }
+
+    /**
+     * 标识列都为null时返回null，此时不识别同一对象
+     */
+    private RowKey rowKey(Object[] values, RowKey parent) {
+        Object[] ids = new Object[idSlots.length];
+        boolean found = false;
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = values[idSlots[i]];
+            found |= ids[i] != null;
+        }
+        return found ? new RowKey(this, parent, ids) : null;
+    }
+
+    private static final class RowKey {
+        private final CompiledRowMapper owner;
+        private final RowKey parent;
+        private final Object[] ids;
+        private final int hash;
+
+        RowKey(CompiledRowMapper owner, RowKey parent, Object[] ids) {
+            this.owner = owner;
+            this.parent = parent;
+            this.ids = ids;
+            this.hash = 31 * (31 * System.identityHashCode(owner) + (parent == null ? 0 : parent.hash))
+                    + Arrays.hashCode(ids);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof RowKey)) {
+                return false;
+            }
+            RowKey other = (RowKey) o;
+            return hash == other.hash && owner == other.owner && Arrays.equals(ids, other.ids)
+                    && (parent == null ? other.parent == null : parent.equals(other.parent));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
\ No newline at end of file
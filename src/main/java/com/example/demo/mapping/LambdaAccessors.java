@@ -0,0 +1,98 @@
+package com.example.demo.mapping;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 通过LambdaMetafactory在运行时生成构造函数、setter、getter的调用类
+ * 生成的类直接调用目标方法，JIT可以内联，不经过反射的参数数组和访问检查
+ */
+final class LambdaAccessors {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private LambdaAccessors() {}
+
+    /**
+     * 无参构造函数，类或构造函数不是public时返回null
+     */
+    @SuppressWarnings("unchecked")
+    static Supplier<Object> constructor(Class<?> type) {
+        if (!Modifier.isPublic(type.getModifiers()) || Modifier.isAbstract(type.getModifiers())) {
+            return null;
+        }
+        try {
+            MethodHandle handle = LOOKUP.findConstructor(type, MethodType.methodType(void.class));
+            CallSite site = LambdaMetafactory.metafactory(LOOKUP, "get", MethodType.methodType(Supplier.class),
+                    MethodType.methodType(Object.class), handle, MethodType.methodType(type));
+            return (Supplier<Object>) site.getTarget().invoke();
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+
+    /**
+     * 属性的setter，没有public的 setXxx(类型) 方法时返回null
+     */
+    @SuppressWarnings("unchecked")
+    static BiConsumer<Object, Object> setter(Class<?> type, String property, Class<?> propertyType) {
+        Method method = publicMethod(type, "set" + capitalize(property), propertyType);
+        if (method == null) {
+            return null;
+        }
+        try {
+            MethodHandle handle = LOOKUP.unreflect(method);
+            CallSite site = LambdaMetafactory.metafactory(LOOKUP, "accept", MethodType.methodType(BiConsumer.class),
+                    MethodType.methodType(void.class, Object.class, Object.class), handle,
+                    MethodType.methodType(void.class, method.getDeclaringClass(), wrap(propertyType)));
+            return (BiConsumer<Object, Object>) site.getTarget().invoke();
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+
+    /**
+     * 属性的getter，没有public的 getXxx() 方法时返回null
+     */
+    @SuppressWarnings("unchecked")
+    static Function<Object, Object> getter(Class<?> type, String property) {
+        Method method = publicMethod(type, "get" + capitalize(property));
+        if (method == null || method.getReturnType().isPrimitive()) {
+            return null;
+        }
+        try {
+            MethodHandle handle = LOOKUP.unreflect(method);
+            CallSite site = LambdaMetafactory.metafactory(LOOKUP, "apply", MethodType.methodType(Function.class),
+                    MethodType.methodType(Object.class, Object.class), handle,
+                    MethodType.methodType(method.getReturnType(), method.getDeclaringClass()));
+            return (Function<Object, Object>) site.getTarget().invoke();
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+
+    private static Method publicMethod(Class<?> type, String name, Class<?>... parameterTypes) {
+        try {
+            Method method = type.getMethod(name, parameterTypes);
+            return Modifier.isPublic(method.getDeclaringClass().getModifiers())
+                    && !Modifier.isStatic(method.getModifiers()) ? method : null;
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static String capitalize(String property) {
+        return Character.toUpperCase(property.charAt(0)) + property.substring(1);
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        return MethodType.methodType(type).wrap().returnType();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,90 @@
+package com.example.demo.mapping;
+
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.session.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 不使用反射的结果映射
+ * 第一次执行语句时把resultMap编译为 {@link ResultMapPlan}，按结果集的列绑定为 {@link CompiledRowMapper} 后缓存，
+ * 之后每行只做按下标取值和直接的setter调用。包含不支持特性的语句由 supports 返回false，交给MyBatis默认处理。
+ * 每个Configuration一个实例。
+ */
+public class ResultMapCompiler {
+    private static final Logger logger = LoggerFactory.getLogger(ResultMapCompiler.class);
+
+    private final Configuration configuration;
+    // 语句ID -> 编译结果，不支持的语句为empty
+    private final Map<String, Optional<ResultMapPlan>> plans = new ConcurrentHashMap<>();
+    // 语句ID + 结果集列名 -> 绑定列下标后的映射器
+    private final Map<String, CompiledRowMapper> mappers = new ConcurrentHashMap<>();
+
+    public ResultMapCompiler(Configuration configuration) {
+        this.configuration = configuration;
+    }
+
+    /**
+     * 语句是否可以使用编译后的映射：只有一个resultMap、不使用多结果集，且resultMap不含不支持的特性
+     */
+    public boolean supports(MappedStatement ms) {
+        return planOf(ms).isPresent();
+    }
+
+    /**
+     * 映射结果集的所有行，调用前需确认 supports 返回true；结果集由调用方关闭
+     */
+    public List<Object> handleResultSet(MappedStatement ms, ResultSet rs) throws SQLException {
+        ResultMapPlan plan = planOf(ms).orElseThrow(() ->
+                new IllegalStateException("语句不支持编译映射: " + ms.getId()));
+        ResultSetMetaData metaData = rs.getMetaData();
+        Map<String, Integer> columns = columnsOf(metaData);
+        String key = ms.getId() + columns.keySet();
+        CompiledRowMapper mapper = mappers.get(key);
+        if (mapper == null) {
+            mapper = CompiledRowMapper.bind(configuration, plan, metaData, columns);
+            mappers.putIfAbsent(key, mapper);
+        }
+        return mapper.mapAll(rs);
+    }
+
+    private Optional<ResultMapPlan> planOf(MappedStatement ms) {
+        return plans.computeIfAbsent(ms.getId(), id -> compile(ms));
+    }
+
+    private Optional<ResultMapPlan> compile(MappedStatement ms) {
+        List<ResultMap> resultMaps = ms.getResultMaps();
+        if (resultMaps.size() != 1 || ms.getResultSets() != null) {
+            logger.debug("{} 使用默认结果映射：多个resultMap或多结果集", ms.getId());
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(ResultMapPlan.compile(configuration, resultMaps.get(0)));
+        } catch (ResultMapPlan.UnsupportedResultMapException e) {
+            logger.debug("{} 使用默认结果映射：{}", ms.getId(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 大写列名 -> 列下标，重复的列名取第一列（与MyBatis按列名取值一致）
+     */
+    private static Map<String, Integer> columnsOf(ResultSetMetaData metaData) throws SQLException {
+        Map<String, Integer> columns = new LinkedHashMap<>();
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            columns.putIfAbsent(metaData.getColumnLabel(i).toUpperCase(Locale.ENGLISH), i);
+        }
+        return columns;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,183 @@
+package com.example.demo.mapping;
+
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.session.AutoMappingBehavior;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.TypeHandler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * resultMap编译后的结构：构造函数、各属性的列名/TypeHandler/setter、嵌套的association和collection
+ * 与结果集的列无关，绑定列下标后得到 {@link CompiledRowMapper}。
+ */
+final class ResultMapPlan {
+    private static final int MAX_DEPTH = 8;
+
+    final ResultMap resultMap;
+    final Class<?> type;
+    final Supplier<Object> constructor;
+    final List<PropertyPlan> properties;
+    final List<NestedPlan> nested;
+    // 是否对resultMap中未配置的列做自动映射（只用于没有嵌套映射的顶层resultMap）
+    final boolean autoMapping;
+
+    private ResultMapPlan(ResultMap resultMap, Supplier<Object> constructor, List<PropertyPlan> properties,
+                          List<NestedPlan> nested, boolean autoMapping) {
+        this.resultMap = resultMap;
+        this.type = resultMap.getType();
+        this.constructor = constructor;
+        this.properties = properties;
+        this.nested = nested;
+        this.autoMapping = autoMapping;
+    }
+
+    /**
+     * 编译顶层resultMap，包含不支持的特性时抛出 UnsupportedResultMapException
+     */
+    static ResultMapPlan compile(Configuration configuration, ResultMap resultMap)
+            throws UnsupportedResultMapException {
+        if (configuration.isCallSettersOnNulls() || configuration.isReturnInstanceForEmptyRow()
+                || !configuration.isUseColumnLabel()) {
+            throw new UnsupportedResultMapException("callSettersOnNulls/returnInstanceForEmptyRow/useColumnLabel 设置");
+        }
+        return compile(configuration, resultMap, "", false, 0);
+    }
+
+    private static ResultMapPlan compile(Configuration configuration, ResultMap resultMap, String columnPrefix,
+                                         boolean isNested, int depth) throws UnsupportedResultMapException {
+        if (depth > MAX_DEPTH) {
+            throw new UnsupportedResultMapException("嵌套层数超过 " + MAX_DEPTH);
+        }
+        if (resultMap.getDiscriminator() != null || !resultMap.getConstructorResultMappings().isEmpty()) {
+            throw new UnsupportedResultMapException("鉴别器/构造函数映射");
+        }
+        Class<?> type = resultMap.getType();
+        if (configuration.getTypeHandlerRegistry().hasTypeHandler(type) || Collection.class.isAssignableFrom(type)
+                || Map.class.isAssignableFrom(type)) {
+            throw new UnsupportedResultMapException("结果类型 " + type.getName());
+        }
+        Supplier<Object> constructor = LambdaAccessors.constructor(type);
+        if (constructor == null) {
+            throw new UnsupportedResultMapException(type.getName() + " 没有public无参构造函数");
+        }
+        Reflector reflector = configuration.getReflectorFactory().findForClass(type);
+        List<PropertyPlan> properties = new ArrayList<>();
+        List<NestedPlan> nested = new ArrayList<>();
+        for (ResultMapping mapping : resultMap.getPropertyResultMappings()) {
+            String property = mapping.getProperty();
+            if (mapping.getNestedQueryId() != null || mapping.getResultSet() != null || mapping.isCompositeResult()
+                    || !mapping.getNotNullColumns().isEmpty()
+                    || property == null || property.indexOf('.') >= 0 || !reflector.hasSetter(property)) {
+                throw new UnsupportedResultMapException("属性 " + property + " 使用了嵌套查询/多结果集/复合列/notNullColumn/属性路径");
+            }
+            Class<?> propertyType = reflector.getSetterType(property);
+            BiConsumer<Object, Object> setter = LambdaAccessors.setter(type, property, propertyType);
+            if (setter == null) {
+                throw new UnsupportedResultMapException(type.getName() + "." + property + " 没有public setter");
+            }
+            if (mapping.getNestedResultMapId() != null) {
+                nested.add(compileNested(configuration, mapping, type, property, propertyType, setter,
+                        columnPrefix, depth));
+                continue;
+            }
+            TypeHandler<?> typeHandler = mapping.getTypeHandler();
+            if (typeHandler == null || mapping.getColumn() == null) {
+                throw new UnsupportedResultMapException("属性 " + property + " 缺少列或TypeHandler");
+            }
+            String column = (columnPrefix + mapping.getColumn()).toUpperCase(Locale.ENGLISH);
+            properties.add(new PropertyPlan(column, typeHandler, setter,
+                    resultMap.getIdResultMappings().contains(mapping)));
+        }
+        boolean autoMapping = shouldAutoMap(configuration, resultMap, isNested || !nested.isEmpty());
+        if (autoMapping && (isNested || !nested.isEmpty())) {
+            throw new UnsupportedResultMapException("嵌套resultMap的自动映射");
+        }
+        return new ResultMapPlan(resultMap, constructor, Collections.unmodifiableList(properties),
+                Collections.unmodifiableList(nested), autoMapping);
+    }
+
+    private static NestedPlan compileNested(Configuration configuration, ResultMapping mapping, Class<?> ownerType,
+                                            String property, Class<?> propertyType, BiConsumer<Object, Object> setter,
+                                            String columnPrefix, int depth) throws UnsupportedResultMapException {
+        ResultMap nestedMap = configuration.getResultMap(mapping.getNestedResultMapId());
+        String prefix = columnPrefix + (mapping.getColumnPrefix() == null ? "" : mapping.getColumnPrefix());
+        ResultMapPlan plan = compile(configuration, nestedMap, prefix, true, depth + 1);
+        if (!Collection.class.isAssignableFrom(propertyType)) {
+            return new NestedPlan(plan, setter, null);
+        }
+        // collection属性按ArrayList创建，需要能赋值给属性类型
+        if (!propertyType.isAssignableFrom(ArrayList.class)) {
+            throw new UnsupportedResultMapException("集合属性 " + property + " 的类型 " + propertyType.getName());
+        }
+        Function<Object, Object> getter = LambdaAccessors.getter(ownerType, property);
+        if (getter == null) {
+            throw new UnsupportedResultMapException(ownerType.getName() + "." + property + " 没有public getter");
+        }
+        return new NestedPlan(plan, setter, getter);
+    }
+
+    /**
+     * 与MyBatis相同的自动映射判断：resultMap的autoMapping优先，嵌套结果只在FULL时自动映射
+     */
+    private static boolean shouldAutoMap(Configuration configuration, ResultMap resultMap, boolean isNested) {
+        if (resultMap.getAutoMapping() != null) {
+            return resultMap.getAutoMapping();
+        }
+        AutoMappingBehavior behavior = configuration.getAutoMappingBehavior();
+        return isNested ? behavior == AutoMappingBehavior.FULL : behavior != AutoMappingBehavior.NONE;
+    }
+
+    static final class PropertyPlan {
+        final String column;
+        final TypeHandler<?> typeHandler;
+        final BiConsumer<Object, Object> setter;
+        // 是否用于识别同一个对象：<id>列，resultMap没有<id>时为所有列（与MyBatis相同）
+        final boolean id;
+
+        PropertyPlan(String column, TypeHandler<?> typeHandler, BiConsumer<Object, Object> setter, boolean id) {
+            this.column = column;
+            this.typeHandler = typeHandler;
+            this.setter = setter;
+            this.id = id;
+        }
+    }
+
+    static final class NestedPlan {
+        final ResultMapPlan plan;
+        final BiConsumer<Object, Object> setter;
+        // collection属性的getter，association为null
+        final Function<Object, Object> collectionGetter;
+
+        NestedPlan(ResultMapPlan plan, BiConsumer<Object, Object> setter, Function<Object, Object> collectionGetter) {
+            this.plan = plan;
+            this.setter = setter;
+            this.collectionGetter = collectionGetter;
+        }
+
+        boolean isCollection() {
+            return collectionGetter != null;
+        }
+    }
+
+    /**
+     * resultMap包含编译器不支持的特性，由MyBatis默认处理
+     */
+    static final class UnsupportedResultMapException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        UnsupportedResultMapException(String message) {
+            super(message);
+        }
+    }
+}
\ No newline at end of file
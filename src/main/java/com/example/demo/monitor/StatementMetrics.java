@@ -0,0 +1,53 @@
+package com.example.demo.monitor;
+
+import com.example.demo.utils.JmxUtil;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按映射语句ID汇总的执行统计，每条语句首次执行时注册为JMX MBean
+ */
+public class StatementMetrics {
+    private static final String OBJECT_NAME_PREFIX = "com.example.demo:type=StatementMetrics,name=";
+    private static final Map<String, StatementStats> STATS = new ConcurrentHashMap<>();
+
+    private StatementMetrics() {}
+
+    public static StatementStats get(String statementId) {
+        // 先无锁读取，只有首次出现的语句才进入computeIfAbsent
+        StatementStats stats = STATS.get(statementId);
+        if (stats != null) {
+            return stats;
+        }
+        return STATS.computeIfAbsent(statementId, id -> {
+            StatementStats created = new StatementStats(id);
+            JmxUtil.register(OBJECT_NAME_PREFIX + JmxUtil.quote(id), created);
+            return created;
+        });
+    }
+
+    /**
+     * 所有语句的统计快照，按p99耗时从高到低排序
+     */
+    public static Map<String, StatementSnapshot> snapshot() {
+        List<StatementSnapshot> snapshots = new ArrayList<>();
+        for (StatementStats stats : STATS.values()) {
+            snapshots.add(stats.snapshot());
+        }
+        snapshots.sort(Comparator.comparingDouble(StatementSnapshot::getP99Millis).reversed());
+        Map<String, StatementSnapshot> result = new LinkedHashMap<>();
+        for (StatementSnapshot snapshot : snapshots) {
+            result.put(snapshot.getStatementId(), snapshot);
+        }
+        return result;
+    }
+
+    public static void reset() {
+        STATS.values().forEach(StatementStats::reset);
+    }
+}
\ No newline at end of file
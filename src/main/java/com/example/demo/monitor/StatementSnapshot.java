@@ -0,0 +1,19 @@
+package com.example.demo.monitor;
+
+import lombok.Data;
+
+/**
+ * 映射语句统计快照，耗时单位为毫秒
+ */
+@Data
+public class StatementSnapshot {
+    private String statementId;
+    private long count;
+    private long errorCount;
+    private long rowCount;
+    private double meanMillis;
+    private double maxMillis;
+    private double p50Millis;
+    private double p99Millis;
+    private double p999Millis;
+}
\ No newline at end of file
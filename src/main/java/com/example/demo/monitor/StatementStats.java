@@ -0,0 +1,99 @@
+package com.example.demo.monitor;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单条映射语句的执行统计，同时作为JMX MXBean发布
+ */
+public class StatementStats implements StatementStatsMXBean {
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final String statementId;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLong rowCount = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+
+    public StatementStats(String statementId) {
+        this.statementId = statementId;
+    }
+
+    /**
+     * 记录一次执行，rows为查询返回行数或更新影响行数
+     */
+    public void record(long nanos, long rows, boolean error) {
+        latency.record(nanos);
+        if (rows > 0) {
+            rowCount.addAndGet(rows);
+        }
+        if (error) {
+            errorCount.incrementAndGet();
+        }
+    }
+
+    public StatementSnapshot snapshot() {
+        StatementSnapshot snapshot = new StatementSnapshot();
+        snapshot.setStatementId(statementId);
+        snapshot.setCount(getCount());
+        snapshot.setErrorCount(getErrorCount());
+        snapshot.setRowCount(getRowCount());
+        snapshot.setMeanMillis(getMeanMillis());
+        snapshot.setMaxMillis(getMaxMillis());
+        snapshot.setP50Millis(getP50Millis());
+        snapshot.setP99Millis(getP99Millis());
+        snapshot.setP999Millis(getP999Millis());
+        return snapshot;
+    }
+
+    @Override
+    public String getStatementId() {
+        return statementId;
+    }
+
+    @Override
+    public long getCount() {
+        return latency.getCount();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return errorCount.get();
+    }
+
+    @Override
+    public long getRowCount() {
+        return rowCount.get();
+    }
+
+    @Override
+    public double getMeanMillis() {
+        long count = latency.getCount();
+        return count == 0 ? 0 : latency.getSum() / NANOS_PER_MILLI / count;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return latency.getMax() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getP50Millis() {
+        return latency.percentile(0.50) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getP99Millis() {
+        return latency.percentile(0.99) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getP999Millis() {
+        return latency.percentile(0.999) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public void reset() {
+        latency.reset();
+        rowCount.set(0);
+        errorCount.set(0);
+    }
+}
\ No newline at end of file
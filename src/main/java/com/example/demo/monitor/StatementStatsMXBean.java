@@ -0,0 +1,26 @@
+package com.example.demo.monitor;
+
+/**
+ * 映射语句统计的JMX接口，耗时单位为毫秒
+ */
+public interface StatementStatsMXBean {
+    String getStatementId();
+
+    long getCount();
+
+    long getErrorCount();
+
+    long getRowCount();
+
+    double getMeanMillis();
+
+    double getMaxMillis();
+
+    double getP50Millis();
+
+    double getP99Millis();
+
+    double getP999Millis();
+
+    void reset();
+}
\ No newline at end of file
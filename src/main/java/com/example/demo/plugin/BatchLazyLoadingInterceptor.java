@@ -0,0 +1,373 @@
+package com.example.demo.plugin;
+
+import com.example.demo.utils.CollectionUtil;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.ParamNameResolver;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.transaction.managed.ManagedTransaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 批量延迟加载插件
+ * 查询返回带延迟加载关联的结果列表时，记录每个对象待加载关联的主键；
+ * 第一个对象触发延迟加载时，用IN查询按批次加载同一列表中所有对象的关联，
+ * 其余对象触发延迟加载时直接使用已加载的结果，不再访问数据库。
+ * 批次属于执行外层查询的会话，只用于该会话中由延迟加载触发的嵌套查询，直接调用Mapper的查询和其他会话照常查询数据库；
+ * 会话执行写操作、提交、回滚或关闭时丢弃批次，之后的延迟加载逐条查询。已加载的结果最多保留prefetchTtlMillis。
+ */
+@Intercepts({
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "commit", args = {boolean.class}),
+        @Signature(type = Executor.class, method = "rollback", args = {boolean.class}),
+        @Signature(type = Executor.class, method = "close", args = {boolean.class}),
+        @Signature(type = StatementHandler.class, method = "query",
+                args = {Statement.class, ResultHandler.class})
+})
+public class BatchLazyLoadingInterceptor implements Interceptor {
+    private static final Logger logger = LoggerFactory.getLogger(BatchLazyLoadingInterceptor.class);
+    private static final String BATCH_PREFIX = "batch.";
+    // 当前线程正在执行的Mapper查询层数：延迟加载使用会话内部的执行器，不经过执行器插件，此时为0
+    private static final ThreadLocal<int[]> DIRECT_QUERY_DEPTH = ThreadLocal.withInitial(() -> new int[1]);
+
+    // 嵌套查询ID -> 批量查询定义
+    private final Map<String, BatchDefinition> definitions = new HashMap<>();
+    // 外层查询ID -> 该查询结果映射中可以批量加载的关联
+    private final Map<String, List<LazyBinding>> bindingCache = new ConcurrentHashMap<>();
+    // 会话的执行器（剥离插件代理后，即嵌套查询的StatementHandler使用的执行器）-> 该会话登记的批次
+    private final Map<Executor, SessionBatches> sessions = new ConcurrentHashMap<>();
+    // 所有会话登记的主键数，登记和丢弃批次时持有this
+    private int pendingKeyCount;
+
+    private int chunkSize = 500;
+    private long prefetchTtlMillis = 60_000;
+    private int maxPendingKeys = 100_000;
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        if (invocation.getTarget() instanceof StatementHandler) {
+            List<Object> prefetched = findPrefetched((StatementHandler) invocation.getTarget(), (Statement) invocation.getArgs()[0]);
+            return prefetched != null ? prefetched : invocation.proceed();
+        }
+        Executor executor = (Executor) PluginUtil.realTarget(invocation.getTarget());
+        if (!"query".equals(invocation.getMethod().getName())) {
+            // 写操作之后已加载的结果可能过时，事务结束或会话关闭后批次不再使用
+            dropSession(executor);
+            return invocation.proceed();
+        }
+        int[] depth = DIRECT_QUERY_DEPTH.get();
+        Object result;
+        depth[0]++;
+        try {
+            result = invocation.proceed();
+        } finally {
+            depth[0]--;
+        }
+        if (result instanceof List && !((List<?>) result).isEmpty()) {
+            registerPendingKeys(executor, (MappedStatement) invocation.getArgs()[0], (List<?>) result);
+        }
+        return result;
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+        for (String name : properties.stringPropertyNames()) {
+            String value = properties.getProperty(name).trim();
+            if ("chunkSize".equals(name)) {
+                chunkSize = Integer.parseInt(value);
+            } else if ("prefetchTtlMillis".equals(name)) {
+                prefetchTtlMillis = Long.parseLong(value);
+            } else if ("maxPendingKeys".equals(name)) {
+                maxPendingKeys = Integer.parseInt(value);
+            } else if (name.startsWith(BATCH_PREFIX)) {
+                // 格式：batch.<嵌套查询ID> = <批量查询ID>,<子对象中与主键对应的属性>
+                String[] parts = value.split(",");
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException("批量延迟加载配置格式应为 <批量查询ID>,<关联属性>: " + name + "=" + value);
+                }
+                definitions.put(name.substring(BATCH_PREFIX.length()), new BatchDefinition(parts[0].trim(), parts[1].trim()));
+            }
+        }
+    }
+
+    /**
+     * 记录结果列表中每个对象待加载关联的主键
+     */
+    private void registerPendingKeys(Executor executor, MappedStatement ms, List<?> results) {
+        List<LazyBinding> bindings = bindingCache.computeIfAbsent(ms.getId(), id -> resolveBindings(ms));
+        if (bindings.isEmpty()) {
+            return;
+        }
+        Configuration configuration = ms.getConfiguration();
+        for (LazyBinding binding : bindings) {
+            Set<Object> keys = new LinkedHashSet<>();
+            for (Object result : results) {
+                if (result == null) {
+                    continue;
+                }
+                MetaObject metaObject = configuration.newMetaObject(result);
+                Object key = metaObject.getValue(binding.parentKeyProperty);
+                if (key != null) {
+                    keys.add(PluginUtil.normalizeKey(key));
+                }
+            }
+            // 只有一个主键时批量加载没有意义
+            if (keys.size() < 2) {
+                continue;
+            }
+            PendingBatch batch = new PendingBatch(binding.definition, new ArrayList<>(keys));
+            synchronized (this) {
+                if (pendingKeyCount + keys.size() > maxPendingKeys) {
+                    purgeExpired();
+                    if (pendingKeyCount + keys.size() > maxPendingKeys) {
+                        continue;
+                    }
+                }
+                sessions.computeIfAbsent(executor, e -> new SessionBatches()).add(binding.nestedQueryId, batch);
+                pendingKeyCount += keys.size();
+            }
+        }
+    }
+
+    /**
+     * 会话中由延迟加载触发的嵌套查询执行前查找该会话记录的批次，必要时先批量加载整批主键
+     */
+    private List<Object> findPrefetched(StatementHandler statementHandler, Statement statement) throws SQLException {
+        if (sessions.isEmpty() || DIRECT_QUERY_DEPTH.get()[0] > 0) {
+            return null;
+        }
+        MetaObject metaHandler = SystemMetaObject.forObject(PluginUtil.realTarget(statementHandler));
+        SessionBatches session = sessions.get((Executor) metaHandler.getValue("delegate.executor"));
+        if (session == null) {
+            return null;
+        }
+        MappedStatement ms = (MappedStatement) metaHandler.getValue("delegate.mappedStatement");
+        Object key = PluginUtil.normalizeKey(statementHandler.getBoundSql().getParameterObject());
+        PendingBatch batch = key == null ? null : session.find(ms.getId(), key);
+        if (batch == null || batch.isExpired(prefetchTtlMillis)) {
+            return null;
+        }
+        return batch.rowsFor(key, ms.getConfiguration(), statement.getConnection(), chunkSize);
+    }
+
+    private void dropSession(Executor executor) {
+        // 批次只由会话自己的线程登记，没有登记过时不必加锁
+        if (!sessions.containsKey(executor)) {
+            return;
+        }
+        synchronized (this) {
+            SessionBatches session = sessions.remove(executor);
+            if (session != null) {
+                pendingKeyCount -= session.keyCount;
+            }
+        }
+    }
+
+    /**
+     * 丢弃超时的批次（例如长时间不关闭的会话中的批次），调用时持有this
+     */
+    private void purgeExpired() {
+        for (Iterator<SessionBatches> iterator = sessions.values().iterator(); iterator.hasNext(); ) {
+            SessionBatches session = iterator.next();
+            pendingKeyCount -= session.removeExpired(prefetchTtlMillis);
+            if (session.keyCount == 0) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * 解析结果映射中配置了批量查询的延迟加载关联
+     */
+    private List<LazyBinding> resolveBindings(MappedStatement ms) {
+        if (definitions.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<LazyBinding> bindings = new ArrayList<>();
+        for (ResultMap resultMap : ms.getResultMaps()) {
+            for (ResultMapping mapping : resultMap.getPropertyResultMappings()) {
+                BatchDefinition definition = mapping.getNestedQueryId() == null ? null : definitions.get(mapping.getNestedQueryId());
+                if (definition == null || !mapping.isLazy()) {
+                    continue;
+                }
+                String parentKeyProperty = findPropertyByColumn(resultMap, mapping.getColumn());
+                if (parentKeyProperty == null) {
+                    logger.debug("{} 的关联 {} 使用了复合列或未映射的列，不做批量加载", ms.getId(), mapping.getProperty());
+                    continue;
+                }
+                bindings.add(new LazyBinding(mapping.getNestedQueryId(), parentKeyProperty, definition));
+            }
+        }
+        return bindings;
+    }
+
+    private static String findPropertyByColumn(ResultMap resultMap, String column) {
+        if (column == null) {
+            return null;
+        }
+        for (ResultMapping mapping : resultMap.getResultMappings()) {
+            if (mapping.getNestedQueryId() == null && mapping.getNestedResultMapId() == null
+                    && column.equalsIgnoreCase(mapping.getColumn())) {
+                return mapping.getProperty();
+            }
+        }
+        return null;
+    }
+
+    private static class BatchDefinition {
+        final String batchStatementId;  // 按主键集合查询的语句，参数为主键集合
+        final String keyProperty;       // 子对象中与父对象主键对应的属性
+
+        BatchDefinition(String batchStatementId, String keyProperty) {
+            this.batchStatementId = batchStatementId;
+            this.keyProperty = keyProperty;
+        }
+    }
+
+    private static class LazyBinding {
+        final String nestedQueryId;
+        final String parentKeyProperty;
+        final BatchDefinition definition;
+
+        LazyBinding(String nestedQueryId, String parentKeyProperty, BatchDefinition definition) {
+            this.nestedQueryId = nestedQueryId;
+            this.parentKeyProperty = parentKeyProperty;
+            this.definition = definition;
+        }
+    }
+
+    /**
+     * 一个会话登记的批次；登记和丢弃时持有插件的锁，延迟加载时只读
+     */
+    private static class SessionBatches {
+        // 嵌套查询ID -> (主键 -> 所属批次)，同一主键以最近登记的批次为准
+        private final Map<String, Map<Object, PendingBatch>> batchesByQuery = new ConcurrentHashMap<>();
+        private final List<PendingBatch> batches = new ArrayList<>();
+        private int keyCount;
+
+        void add(String nestedQueryId, PendingBatch batch) {
+            Map<Object, PendingBatch> byKey = batchesByQuery.computeIfAbsent(nestedQueryId, id -> new ConcurrentHashMap<>());
+            for (Object key : batch.keys) {
+                byKey.put(key, batch);
+            }
+            batches.add(batch);
+            keyCount += batch.keys.size();
+        }
+
+        PendingBatch find(String nestedQueryId, Object key) {
+            Map<Object, PendingBatch> byKey = batchesByQuery.get(nestedQueryId);
+            return byKey == null ? null : byKey.get(key);
+        }
+
+        /**
+         * 移除超时的批次，返回移除的主键数
+         */
+        int removeExpired(long ttlMillis) {
+            int removed = 0;
+            for (Iterator<PendingBatch> iterator = batches.iterator(); iterator.hasNext(); ) {
+                PendingBatch batch = iterator.next();
+                if (!batch.isExpired(ttlMillis)) {
+                    continue;
+                }
+                iterator.remove();
+                for (Map<Object, PendingBatch> byKey : batchesByQuery.values()) {
+                    for (Object key : batch.keys) {
+                        byKey.remove(key, batch);
+                    }
+                }
+                removed += batch.keys.size();
+            }
+            keyCount -= removed;
+            return removed;
+        }
+    }
+
+    /**
+     * 同一结果列表中待加载的一批主键，第一次触发时整批加载
+     */
+    private static class PendingBatch {
+        private final BatchDefinition definition;
+        private final List<Object> keys;
+        private final long createdAt = System.currentTimeMillis();
+        private Map<Object, List<Object>> rowsByKey;
+
+        PendingBatch(BatchDefinition definition, List<Object> keys) {
+            this.definition = definition;
+            this.keys = keys;
+        }
+
+        boolean isExpired(long ttlMillis) {
+            return System.currentTimeMillis() - createdAt > ttlMillis;
+        }
+
+        synchronized List<Object> rowsFor(Object key, Configuration configuration, Connection connection, int chunkSize)
+                throws SQLException {
+            if (rowsByKey == null) {
+                rowsByKey = load(configuration, connection, chunkSize);
+            }
+            // 多个父对象可能共享同一个主键（如同一部门），每次返回新的列表
+            List<Object> rows = rowsByKey.get(key);
+            return rows == null ? null : new ArrayList<>(rows);
+        }
+
+        /**
+         * 在触发延迟加载的连接上按批次执行IN查询，并按关联属性分组
+         */
+        private Map<Object, List<Object>> load(Configuration configuration, Connection connection, int chunkSize)
+                throws SQLException {
+            MappedStatement batchStatement = configuration.getMappedStatement(definition.batchStatementId);
+            Map<Object, List<Object>> grouped = new HashMap<>();
+            for (Object key : keys) {
+                grouped.put(key, new ArrayList<>());
+            }
+            Executor executor = configuration.newExecutor(new ManagedTransaction(connection, false), ExecutorType.SIMPLE);
+            try {
+                for (List<Object> chunk : CollectionUtil.partition(keys, chunkSize)) {
+                    List<Object> rows = executor.query(batchStatement, ParamNameResolver.wrapToMapIfCollection(chunk, null),
+                            RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+                    for (Object row : rows) {
+                        Object key = PluginUtil.normalizeKey(configuration.newMetaObject(row).getValue(definition.keyProperty));
+                        List<Object> group = grouped.get(key);
+                        if (group != null) {
+                            group.add(row);
+                        }
+                    }
+                }
+            } finally {
+                executor.close(false);
+            }
+            logger.debug("批量加载 {} 个主键，共 {} 批，语句 {}", keys.size(),
+                    (keys.size() + chunkSize - 1) / chunkSize, definition.batchStatementId);
+            return grouped;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,119 @@
+package com.example.demo.plugin;
+
+import com.example.demo.mapping.ResultMapCompiler;
+import org.apache.ibatis.executor.ErrorContext;
+import org.apache.ibatis.executor.resultset.DefaultResultSetHandler;
+import org.apache.ibatis.executor.resultset.ResultSetHandler;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.RowBounds;
+
+import java.lang.reflect.Field;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Properties;
+
+/**
+ * 编译结果映射插件
+ * 用 {@link ResultMapCompiler} 生成的映射器代替DefaultResultSetHandler的反射映射，
+ * 覆盖简单resultMap以及嵌套的association/collection；
+ * 使用ResultHandler、RowBounds分页、嵌套查询、鉴别器等特性的语句仍由MyBatis处理。
+ * 配置 enabled=false 时关闭，用于对比两种映射的结果和性能。
+ */
+@Intercepts(@Signature(type = ResultSetHandler.class, method = "handleResultSets", args = {Statement.class}))
+public class CompiledResultMapInterceptor implements Interceptor {
+    private static final Field MAPPED_STATEMENT_FIELD = accessibleField("mappedStatement");
+    private static final Field RESULT_HANDLER_FIELD = accessibleField("resultHandler");
+    private static final Field ROW_BOUNDS_FIELD = accessibleField("rowBounds");
+
+    private volatile boolean enabled = true;
+    private volatile ResultMapCompiler compiler;
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        if (!enabled) {
+            return invocation.proceed();
+        }
+        Object handler = PluginUtil.realTarget(invocation.getTarget());
+        if (!(handler instanceof DefaultResultSetHandler) || RESULT_HANDLER_FIELD.get(handler) != null
+                || ROW_BOUNDS_FIELD.get(handler) != RowBounds.DEFAULT) {
+            return invocation.proceed();
+        }
+        MappedStatement ms = (MappedStatement) MAPPED_STATEMENT_FIELD.get(handler);
+        ResultMapCompiler resultMapCompiler = compilerOf(ms);
+        if (!resultMapCompiler.supports(ms)) {
+            return invocation.proceed();
+        }
+        ErrorContext.instance().activity("handling results").object(ms.getId());
+        ResultSet rs = firstResultSet((Statement) invocation.getArgs()[0]);
+        if (rs == null) {
+            return new ArrayList<>();
+        }
+        try {
+            return resultMapCompiler.handleResultSet(ms, rs);
+        } finally {
+            try {
+                rs.close();
+            } catch (SQLException e) {
+                // 忽略关闭异常
+            }
+        }
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+        this.enabled = Boolean.parseBoolean(properties.getProperty("enabled", "true"));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    private ResultMapCompiler compilerOf(MappedStatement ms) {
+        ResultMapCompiler current = compiler;
+        if (current == null) {
+            synchronized (this) {
+                current = compiler;
+                if (current == null) {
+                    current = new ResultMapCompiler(ms.getConfiguration());
+                    compiler = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 与DefaultResultSetHandler相同：跳过前面的更新计数，取第一个结果集
+     */
+    private static ResultSet firstResultSet(Statement stmt) throws SQLException {
+        ResultSet rs = stmt.getResultSet();
+        while (rs == null) {
+            if (stmt.getMoreResults()) {
+                rs = stmt.getResultSet();
+            } else if (stmt.getUpdateCount() == -1) {
+                return null;
+            }
+        }
+        return rs;
+    }
+
+    private static Field accessibleField(String name) {
+        try {
+            Field field = DefaultResultSetHandler.class.getDeclaredField(name);
+            field.setAccessible(true);
+            return field;
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException("不支持的MyBatis版本，缺少字段 DefaultResultSetHandler." + name, e);
+        }
+    }
+}
\ No newline at end of file
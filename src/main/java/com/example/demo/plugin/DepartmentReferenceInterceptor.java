@@ -0,0 +1,117 @@
+package com.example.demo.plugin;
+
+import com.example.demo.cache.DepartmentReferenceCache;
+import com.example.demo.entity.Department;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * 部门引用缓存插件：DepartmentMapper 的 selectById、selectByIds、selectAll 直接由
+ * {@link DepartmentReferenceCache} 的快照返回，不打开连接、不经过二级缓存
+ * 服务层和Mapper的调用在执行器上拦截；延迟加载等嵌套查询使用的执行器没有插件，在StatementHandler上拦截。
+ * 快照不可用或缺少部门时照常查询数据库。
+ */
+@Intercepts({
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class,
+                        CacheKey.class, BoundSql.class}),
+        @Signature(type = StatementHandler.class, method = "query",
+                args = {Statement.class, ResultHandler.class})
+})
+public class DepartmentReferenceInterceptor implements Interceptor {
+    private static final String NAMESPACE = "com.example.demo.mapper.DepartmentMapper.";
+
+    private boolean enabled = true;
+    private long refreshSeconds = 300;
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        if (!enabled) {
+            return invocation.proceed();
+        }
+        Object[] args = invocation.getArgs();
+        MappedStatement ms;
+        Object parameter;
+        RowBounds rowBounds;
+        Object resultHandler;
+        if (invocation.getTarget() instanceof StatementHandler) {
+            StatementHandler statementHandler = (StatementHandler) invocation.getTarget();
+            MetaObject metaHandler = SystemMetaObject.forObject(PluginUtil.realTarget(statementHandler));
+            ms = (MappedStatement) metaHandler.getValue("delegate.mappedStatement");
+            rowBounds = (RowBounds) metaHandler.getValue("delegate.rowBounds");
+            parameter = statementHandler.getBoundSql().getParameterObject();
+            resultHandler = args[1];
+        } else {
+            ms = (MappedStatement) args[0];
+            parameter = args[1];
+            rowBounds = (RowBounds) args[2];
+            resultHandler = args[3];
+        }
+        if (!ms.getId().startsWith(NAMESPACE) || resultHandler != Executor.NO_RESULT_HANDLER
+                || rowBounds.getOffset() != RowBounds.NO_ROW_OFFSET || rowBounds.getLimit() != RowBounds.NO_ROW_LIMIT) {
+            return invocation.proceed();
+        }
+        List<Department> departments = lookup(ms, parameter);
+        return departments != null ? departments : invocation.proceed();
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+        enabled = Boolean.parseBoolean(properties.getProperty("enabled", "true"));
+        refreshSeconds = Long.parseLong(properties.getProperty("refreshSeconds", String.valueOf(refreshSeconds)));
+    }
+
+    private List<Department> lookup(MappedStatement ms, Object parameter) {
+        String statement = ms.getId().substring(NAMESPACE.length());
+        if (!"selectById".equals(statement) && !"selectByIds".equals(statement) && !"selectAll".equals(statement)) {
+            return null;
+        }
+        DepartmentReferenceCache cache = DepartmentReferenceCache.of(ms.getConfiguration(), refreshSeconds);
+        cache.start();
+        switch (statement) {
+            case "selectById":
+                Department department = cache.get(parameter);
+                if (department == null) {
+                    return null;
+                }
+                List<Department> departments = new ArrayList<>(1);
+                departments.add(department);
+                return departments;
+            case "selectByIds":
+                Collection<?> ids = idsOf(parameter);
+                return ids == null ? null : cache.getAll(ids);
+            default:
+                return cache.getAll();
+        }
+    }
+
+    /**
+     * 集合参数由MyBatis包装为含 collection/list 的Map
+     */
+    private static Collection<?> idsOf(Object parameter) {
+        if (parameter instanceof Map && ((Map<?, ?>) parameter).containsKey("collection")) {
+            parameter = ((Map<?, ?>) parameter).get("collection");
+        }
+        return parameter instanceof Collection ? (Collection<?>) parameter : null;
+    }
+}
\ No newline at end of file
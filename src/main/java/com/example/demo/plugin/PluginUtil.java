@@ -0,0 +1,36 @@
+package com.example.demo.plugin;
+
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.reflection.SystemMetaObject;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.math.BigInteger;
+
+public class PluginUtil {
+    private PluginUtil() {}
+
+    /**
+     * 剥离多层插件代理，返回真正的目标对象
+     */
+    public static Object realTarget(Object target) {
+        while (Proxy.isProxyClass(target.getClass())) {
+            InvocationHandler handler = Proxy.getInvocationHandler(target);
+            if (!(handler instanceof Plugin)) {
+                break;
+            }
+            target = SystemMetaObject.forObject(handler).getValue("target");
+        }
+        return target;
+    }
+
+    /**
+     * 统一主键类型，避免Integer和Long的同值主键被当作不同的键
+     */
+    public static Object normalizeKey(Object key) {
+        if (key instanceof Integer || key instanceof Short || key instanceof Byte || key instanceof BigInteger) {
+            return ((Number) key).longValue();
+        }
+        return key;
+    }
+}
\ No newline at end of file
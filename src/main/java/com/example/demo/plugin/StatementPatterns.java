@@ -0,0 +1,41 @@
+package com.example.demo.plugin;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 逗号分隔的语句ID列表，以*结尾的项按前缀匹配
+ */
+public class StatementPatterns {
+    private final List<String> exact = new ArrayList<>();
+    private final List<String> prefixes = new ArrayList<>();
+
+    public StatementPatterns(String patterns) {
+        if (patterns == null) {
+            return;
+        }
+        for (String pattern : patterns.split(",")) {
+            String trimmed = pattern.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (trimmed.endsWith("*")) {
+                prefixes.add(trimmed.substring(0, trimmed.length() - 1));
+            } else {
+                exact.add(trimmed);
+            }
+        }
+    }
+
+    public boolean matches(String statementId) {
+        if (exact.contains(statementId)) {
+            return true;
+        }
+        for (String prefix : prefixes) {
+            if (statementId.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,500 @@
+package com.example.demo.plugin;
+
+import com.example.demo.cache.CacheTagIndex;
+import com.example.demo.cache.InvalidationBus;
+import com.example.demo.cache.InvalidationTransport;
+import com.example.demo.cache.NormalizedCache;
+import com.example.demo.cache.UdpInvalidationTransport;
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ResultFlag;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.PluginException;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.reflection.MetaClass;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按主键标记的二级缓存失效插件
+ * 查询时把缓存键登记到结果中的主键（按主键查询的语句还登记参数主键）；
+ * 写语句配置 flushCache="false" 后由本插件处理，只淘汰带有受影响主键的缓存条目：
+ * UPDATE：带有该主键的条目 + 不在 keyedStatements 和 updateStableStatements 中的语句的条目；
+ * INSERT/DELETE：带有该主键的条目 + 不在 keyedStatements 中的语句（列表、统计等）的条目；
+ * 无法确定主键的写操作清空整个命名空间。
+ * 淘汰在写操作时立即执行一次，事务提交后再执行一次，覆盖提交前其他会话写入的旧数据。
+ * 配置 transport 后，提交的失效（包括 flushCache="true" 的写语句）通过 {@link InvalidationBus} 广播给其他节点。
+ * 命名空间使用 {@link NormalizedCache} 时，查询前登记语句；淘汰主键时同时淘汰实体，
+ * UPDATE保留 updateStableStatements 中以主键列表存储的条目。
+ */
+@Intercepts({
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "commit", args = {boolean.class}),
+        @Signature(type = Executor.class, method = "rollback", args = {boolean.class}),
+        @Signature(type = Executor.class, method = "close", args = {boolean.class})
+})
+public class TaggedCacheInvalidationInterceptor implements Interceptor {
+    private static final Logger logger = LoggerFactory.getLogger(TaggedCacheInvalidationInterceptor.class);
+    private static final String NO_ID_PROPERTY = "";
+
+    private final Map<String, CacheTagIndex> indexes = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> taggedNamespaces = new ConcurrentHashMap<>();
+    private final Map<String, String> idProperties = new ConcurrentHashMap<>();
+    private final Map<String, Optional<NormalizedCache>> normalizedCaches = new ConcurrentHashMap<>();
+    // 执行器（即会话）-> 提交后需要执行的淘汰
+    private final Map<Executor, PendingInvalidation> pending = new ConcurrentHashMap<>();
+
+    private StatementPatterns keyedStatements = new StatementPatterns(null);
+    private StatementPatterns updateStableStatements = new StatementPatterns(null);
+    private int maxIndexedKeys = 100_000;
+    private volatile Configuration configuration;
+    private InvalidationBus bus;
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        String method = invocation.getMethod().getName();
+        Executor executor = (Executor) invocation.getTarget();
+        Object[] args = invocation.getArgs();
+        switch (method) {
+            case "query":
+                MappedStatement ms = (MappedStatement) args[0];
+                if (ms.isUseCache() && ms.getCache() != null) {
+                    registerNormalized(ms);
+                }
+                Object result = invocation.proceed();
+                configuration = ms.getConfiguration();
+                if (args[3] == Executor.NO_RESULT_HANDLER && ms.isUseCache() && ms.getCache() != null
+                        && isTagged(ms)) {
+                    tagEntry(executor, ms, args[1], (RowBounds) args[2], (List<?>) result);
+                }
+                return result;
+            case "update":
+                Object updated = invocation.proceed();
+                MappedStatement writeStatement = (MappedStatement) args[0];
+                configuration = writeStatement.getConfiguration();
+                if (writeStatement.getCache() == null) {
+                    return updated;
+                }
+                if (!writeStatement.isFlushCacheRequired()) {
+                    invalidate(executor, writeStatement, args[1], updated);
+                } else if (bus != null) {
+                    // 本地由MyBatis在提交时清空，只需通知其他节点
+                    pending.computeIfAbsent(executor, e -> new PendingInvalidation())
+                            .flushedNamespaces.add(writeStatement.getCache().getId());
+                }
+                return updated;
+            case "commit":
+                Object committed = invocation.proceed();
+                applyPending(executor, true);
+                return committed;
+            case "rollback":
+                try {
+                    return invocation.proceed();
+                } finally {
+                    pending.remove(executor);
+                }
+            default:
+                // close(forceRollback)：未提交的写操作会回滚，只有正常关闭时才执行淘汰
+                boolean forceRollback = (Boolean) args[0];
+                try {
+                    return invocation.proceed();
+                } finally {
+                    applyPending(executor, !forceRollback);
+                }
+        }
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+        keyedStatements = new StatementPatterns(properties.getProperty("keyedStatements"));
+        updateStableStatements = new StatementPatterns(properties.getProperty("updateStableStatements"));
+        maxIndexedKeys = Integer.parseInt(properties.getProperty("maxIndexedKeys", String.valueOf(maxIndexedKeys)));
+        String transport = properties.getProperty("transport", "").trim();
+        if (!transport.isEmpty()) {
+            startBus(transport, properties);
+        }
+    }
+
+    /**
+     * 获取命名空间的索引，供其他组件（如远程失效）按主键淘汰
+     */
+    public CacheTagIndex indexOf(String namespace) {
+        return indexes.computeIfAbsent(namespace, ns -> new CacheTagIndex(maxIndexedKeys));
+    }
+
+    /**
+     * 规范化缓存需要知道语句的主键属性以及参数是否为主键
+     */
+    private void registerNormalized(MappedStatement ms) {
+        NormalizedCache normalized = normalizedCacheOf(ms.getCache());
+        if (normalized != null) {
+            String idProperty = idProperties.computeIfAbsent(ms.getId(), id -> resolveIdProperty(ms));
+            normalized.register(ms, idProperty, keyedStatements.matches(ms.getId()));
+        }
+    }
+
+    private NormalizedCache normalizedCacheOf(Cache cache) {
+        return normalizedCaches.computeIfAbsent(cache.getId(),
+                namespace -> Optional.ofNullable(NormalizedCache.unwrap(cache))).orElse(null);
+    }
+
+    private void tagEntry(Executor executor, MappedStatement ms, Object parameter, RowBounds rowBounds, List<?> results) {
+        BoundSql boundSql = ms.getBoundSql(parameter);
+        CacheKey cacheKey = executor.createCacheKey(ms, parameter, rowBounds, boundSql);
+        CacheTagIndex index = indexOf(ms.getCache().getId());
+        if (index.isIndexed(cacheKey)) {
+            return;
+        }
+        Set<Object> tags = new HashSet<>();
+        if (keyedStatements.matches(ms.getId())) {
+            Set<Object> parameterIds = extractIds(ms.getConfiguration(), parameter, "id");
+            if (parameterIds != null) {
+                tags.addAll(parameterIds);
+            }
+        }
+        String idProperty = idProperties.computeIfAbsent(ms.getId(), id -> resolveIdProperty(ms));
+        if (!NO_ID_PROPERTY.equals(idProperty)) {
+            for (Object row : results) {
+                Object id = idOf(ms.getConfiguration(), row, idProperty);
+                if (id != null) {
+                    tags.add(id);
+                }
+            }
+        }
+        if (!index.register(ms.getId(), cacheKey, tags)) {
+            // 索引条目过多（包括已被缓存自身淘汰的键），清空命名空间重新开始
+            logger.info("命名空间 {} 的缓存索引超过 {} 个键，清空缓存", ms.getCache().getId(), maxIndexedKeys);
+            ms.getCache().clear();
+            index.clear();
+        }
+    }
+
+    private void invalidate(Executor executor, MappedStatement ms, Object parameter, Object updated) {
+        if (updated instanceof Integer && (Integer) updated == 0) {
+            return;
+        }
+        Cache cache = ms.getCache();
+        CacheTagIndex index = indexOf(cache.getId());
+        PendingInvalidation invalidation = pending.computeIfAbsent(executor, e -> new PendingInvalidation());
+        Set<Object> ids = isAttributable(ms, parameter) ? extractIds(ms.getConfiguration(), parameter, "id") : null;
+        if (ids == null || ids.isEmpty()) {
+            logger.debug("{} 无法确定主键，清空命名空间 {}", ms.getId(), cache.getId());
+            clearNamespace(cache, index);
+            invalidation.clearedCaches.add(cache);
+            return;
+        }
+        boolean membershipChanged = ms.getSqlCommandType() != SqlCommandType.UPDATE;
+        Set<CacheKey> keys = evict(cache, index, membershipChanged, ids);
+        invalidation.keysByCache.computeIfAbsent(cache, c -> new HashSet<>()).addAll(keys);
+        invalidation.idsByNamespace.computeIfAbsent(cache.getId(), ns -> new LinkedHashSet<>()).addAll(ids);
+        if (membershipChanged) {
+            invalidation.membershipChanged.add(cache.getId());
+        }
+        logger.debug("{} 淘汰主键 {} 相关的 {} 个缓存条目", ms.getId(), ids, keys.size());
+    }
+
+    /**
+     * 淘汰带有主键的条目，以及可能受影响的非按主键查询的条目；
+     * 只修改已有行（UPDATE）时保留 updateStableStatements 的条目
+     */
+    private Set<CacheKey> evict(Cache cache, CacheTagIndex index, boolean membershipChanged, Collection<Object> ids) {
+        Set<CacheKey> keys = removeTagged(cache, index, membershipChanged, ids);
+        if (membershipChanged) {
+            keys.addAll(index.removeByStatements(id -> !keyedStatements.matches(id)));
+        } else {
+            keys.addAll(index.removeByStatements(id -> !keyedStatements.matches(id) && !updateStableStatements.matches(id)));
+        }
+        for (CacheKey key : keys) {
+            cache.removeObject(key);
+        }
+        return keys;
+    }
+
+    /**
+     * 取出带有主键的条目；规范化缓存中，UPDATE不改变 updateStableStatements 的结果集成员，
+     * 以主键列表存储的条目可以保留，只需淘汰实体
+     */
+    private Set<CacheKey> removeTagged(Cache cache, CacheTagIndex index, boolean membershipChanged,
+                                       Collection<Object> ids) {
+        NormalizedCache normalized = normalizedCacheOf(cache);
+        if (normalized == null) {
+            return index.removeByTags(ids);
+        }
+        normalized.evictEntities(ids);
+        if (membershipChanged) {
+            return index.removeByTags(ids);
+        }
+        return index.removeByTags(ids, (statementId, key) ->
+                !updateStableStatements.matches(statementId) || !normalized.isNormalized(key));
+    }
+
+    /**
+     * 提交后再次淘汰：提交前其他会话可能把旧数据写回了缓存
+     */
+    private void applyPending(Executor executor, boolean committed) {
+        PendingInvalidation invalidation = pending.remove(executor);
+        if (invalidation == null || !committed) {
+            return;
+        }
+        for (Cache cache : invalidation.clearedCaches) {
+            clearNamespace(cache, indexOf(cache.getId()));
+        }
+        for (Map.Entry<Cache, Set<CacheKey>> entry : invalidation.keysByCache.entrySet()) {
+            if (invalidation.clearedCaches.contains(entry.getKey())) {
+                continue;
+            }
+            for (CacheKey key : entry.getValue()) {
+                entry.getKey().removeObject(key);
+            }
+            // 写操作之后、提交之前登记的同主键条目（以及写回的实体）也要淘汰
+            String namespace = entry.getKey().getId();
+            Set<Object> ids = invalidation.idsByNamespace.get(namespace);
+            for (CacheKey key : removeTagged(entry.getKey(), indexOf(namespace),
+                    invalidation.membershipChanged.contains(namespace), ids)) {
+                entry.getKey().removeObject(key);
+            }
+        }
+        if (bus != null) {
+            publish(invalidation);
+        }
+    }
+
+    private void publish(PendingInvalidation invalidation) {
+        Set<String> clearedNamespaces = new HashSet<>(invalidation.flushedNamespaces);
+        for (Cache cache : invalidation.clearedCaches) {
+            clearedNamespaces.add(cache.getId());
+        }
+        for (String namespace : clearedNamespaces) {
+            bus.publishClear(namespace);
+        }
+        for (Map.Entry<String, Set<Object>> entry : invalidation.idsByNamespace.entrySet()) {
+            if (!clearedNamespaces.contains(entry.getKey())) {
+                bus.publishEvict(entry.getKey(), invalidation.membershipChanged.contains(entry.getKey()), entry.getValue());
+            }
+        }
+    }
+
+    private void startBus(String transportType, Properties properties) {
+        InvalidationTransport transport;
+        try {
+            transport = "udp".equalsIgnoreCase(transportType) ? new UdpInvalidationTransport()
+                    : (InvalidationTransport) Class.forName(transportType).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new PluginException("无法创建缓存失效传输 " + transportType + "，原因: " + e, e);
+        }
+        Properties transportProperties = new Properties();
+        for (String name : properties.stringPropertyNames()) {
+            if (name.startsWith("transport.")) {
+                transportProperties.setProperty(name.substring("transport.".length()), properties.getProperty(name));
+            }
+        }
+        bus = new InvalidationBus(transport, new RemoteInvalidationListener(),
+                Integer.parseInt(properties.getProperty("maxIdsPerMessage", "1000")));
+        try {
+            bus.start(transportProperties, Long.parseLong(properties.getProperty("heartbeatMillis", "1000")));
+        } catch (IOException e) {
+            throw new PluginException("缓存失效总线启动失败，原因: " + e, e);
+        }
+    }
+
+    /**
+     * 返回缓存失效总线，未配置 transport 时为null
+     */
+    public InvalidationBus getBus() {
+        return bus;
+    }
+
+    private void clearNamespace(Cache cache, CacheTagIndex index) {
+        cache.clear();
+        index.clear();
+    }
+
+    /**
+     * 只有存在 flushCache="false" 写语句的命名空间才需要登记标签
+     */
+    private boolean isTagged(MappedStatement ms) {
+        String namespace = ms.getCache().getId();
+        return taggedNamespaces.computeIfAbsent(namespace, ns -> {
+            Configuration configuration = ms.getConfiguration();
+            for (String name : new ArrayList<>(configuration.getMappedStatementNames())) {
+                if (!name.startsWith(ns + ".")) {
+                    continue;
+                }
+                MappedStatement statement = configuration.getMappedStatement(name, false);
+                if (statement.getSqlCommandType() != SqlCommandType.SELECT && !statement.isFlushCacheRequired()) {
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    /**
+     * 从参数中提取主键：主键值本身、带主键属性的实体、主键或实体的集合、包含id的参数Map；
+     * 无法提取时返回null
+     */
+    private static Set<Object> extractIds(Configuration configuration, Object parameter, String idProperty) {
+        if (parameter == null) {
+            return null;
+        }
+        Set<Object> ids = new LinkedHashSet<>();
+        if (parameter instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) parameter;
+            Object elements = map.containsKey("collection") ? map.get("collection")
+                    : map.containsKey("list") ? map.get("list") : map.containsKey("array") ? map.get("array") : null;
+            if (elements != null) {
+                return extractIds(configuration, elements, idProperty);
+            }
+            Object id = map.containsKey(idProperty) ? map.get(idProperty) : null;
+            return id == null ? null : extractIds(configuration, id, idProperty);
+        }
+        if (parameter instanceof Collection || parameter instanceof Object[]) {
+            Collection<?> elements = parameter instanceof Collection ? (Collection<?>) parameter
+                    : Arrays.asList((Object[]) parameter);
+            for (Object element : elements) {
+                Object id = idOf(configuration, element, idProperty);
+                if (id == null) {
+                    return null;
+                }
+                ids.add(id);
+            }
+            return ids;
+        }
+        Object id = idOf(configuration, parameter, idProperty);
+        if (id == null) {
+            return null;
+        }
+        ids.add(id);
+        return ids;
+    }
+
+    private static Object idOf(Configuration configuration, Object value, String idProperty) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Number || value instanceof CharSequence) {
+            return PluginUtil.normalizeKey(value);
+        }
+        if (configuration.getTypeHandlerRegistry().hasTypeHandler(value.getClass())) {
+            return null;
+        }
+        MetaObject metaObject = configuration.newMetaObject(value);
+        if (!metaObject.hasGetter(idProperty)) {
+            return null;
+        }
+        return PluginUtil.normalizeKey(metaObject.getValue(idProperty));
+    }
+
+    /**
+     * 结果映射中<id>对应的属性；没有<id>时，结果类型有id属性也可以
+     */
+    private static String resolveIdProperty(MappedStatement ms) {
+        Configuration configuration = ms.getConfiguration();
+        for (ResultMap resultMap : ms.getResultMaps()) {
+            for (ResultMapping mapping : resultMap.getIdResultMappings()) {
+                if (mapping.getProperty() != null && mapping.getFlags().contains(ResultFlag.ID)) {
+                    return mapping.getProperty();
+                }
+            }
+            Class<?> type = resultMap.getType();
+            if (!configuration.getTypeHandlerRegistry().hasTypeHandler(type)
+                    && MetaClass.forClass(type, configuration.getReflectorFactory()).hasGetter("id")) {
+                return "id";
+            }
+        }
+        return NO_ID_PROPERTY;
+    }
+
+    /**
+     * UPDATE/DELETE只有在SQL引用了主键参数（#{id}、foreach中的#{id}或#{item.id}）时才能按主键淘汰；
+     * INSERT只新增行，回填的主键即受影响的主键
+     */
+    private static boolean isAttributable(MappedStatement ms, Object parameter) {
+        if (ms.getSqlCommandType() == SqlCommandType.INSERT) {
+            return true;
+        }
+        for (ParameterMapping mapping : ms.getBoundSql(parameter).getParameterMappings()) {
+            String property = mapping.getProperty();
+            if ("id".equals(property) || property.endsWith(".id") || property.startsWith("__frch_id_")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class PendingInvalidation {
+        final Map<Cache, Set<CacheKey>> keysByCache = new HashMap<>();
+        final Map<String, Set<Object>> idsByNamespace = new HashMap<>();
+        // 有INSERT/DELETE的命名空间
+        final Set<String> membershipChanged = new HashSet<>();
+        final Set<Cache> clearedCaches = new HashSet<>();
+        // flushCache="true" 的写语句涉及的命名空间，只需广播
+        final Set<String> flushedNamespaces = new HashSet<>();
+    }
+
+    /**
+     * 在本地执行其他节点广播的失效；还没有执行过语句时本地缓存为空，直接忽略
+     */
+    private class RemoteInvalidationListener implements InvalidationBus.Listener {
+        @Override
+        public void evict(String namespace, boolean membershipChanged, Collection<Object> ids) {
+            Cache cache = cacheOf(namespace);
+            if (cache != null) {
+                TaggedCacheInvalidationInterceptor.this.evict(cache, indexOf(namespace), membershipChanged, ids);
+            }
+        }
+
+        @Override
+        public void clear(String namespace) {
+            Cache cache = cacheOf(namespace);
+            if (cache != null) {
+                clearNamespace(cache, indexOf(namespace));
+            }
+        }
+
+        @Override
+        public void clearAll() {
+            Configuration current = configuration;
+            if (current == null) {
+                return;
+            }
+            for (String namespace : new ArrayList<>(current.getCacheNames())) {
+                clear(namespace);
+            }
+        }
+
+        private Cache cacheOf(String namespace) {
+            Configuration current = configuration;
+            return current != null && current.hasCache(namespace) ? current.getCache(namespace) : null;
+        }
+    }
+}
\ No newline at end of file
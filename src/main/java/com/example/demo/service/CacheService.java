@@ -1,5 +1,7 @@
 package com.example.demo.service;
 
+import com.example.demo.cache.CacheSnapshot;
+import com.example.demo.cache.CacheStatistics;
 import com.example.demo.entity.User;
 import com.example.demo.utils.Page;
 import com.example.demo.utils.PageParam;
@@ -60,8 +62,8 @@ public class CacheService {
         User user2 = userService.getUserById(testUser.getId());
         logger.info("查询到的用户：{}", user2);
 
-        // 更新用户，缓存应该失效
-        logger.info("更新用户（缓存应该失效）");
+        // 更新用户，只淘汰该用户相关的缓存条目，其他用户的缓存保留
+        logger.info("更新用户（该用户的缓存应该失效）");
         user1.setEmail("updated@example.com");
         userService.updateUser(user1);
 
@@ -87,8 +89,15 @@ public class CacheService {
             // 执行一些查询操作
             userMapper.selectAll();
             userMapper.selectCount();
+        }
 
-            logger.info("缓存演示完成，请查看日志了解缓存使用情况");
+        // 二级缓存在会话关闭时才写入，关闭后再输出统计
+        for (CacheSnapshot snapshot : CacheStatistics.snapshot().values()) {
+            logger.info("命名空间: {}, 命中: {}, 未命中: {}, 命中率: {}, 写入: {}, 淘汰: {}, 过期: {}, 条目数: {}, 估算内存: {}字节, 平均加载耗时: {}ms",
+                    snapshot.getNamespace(), snapshot.getHits(), snapshot.getMisses(),
+                    String.format("%.2f", snapshot.getHitRatio()), snapshot.getPuts(), snapshot.getEvictions(),
+                    snapshot.getExpirations(), snapshot.getSize(), snapshot.getEstimatedHeapBytes(),
+                    String.format("%.3f", snapshot.getAverageLoadMillis()));
         }
     }
 }
\ No newline at end of file
@@ -1,11 +1,21 @@
 package com.example.demo.service;
 
+import com.example.demo.cache.DepartmentReferenceCache;
 import com.example.demo.entity.Department;
 import com.example.demo.mapper.DepartmentMapper;
+import com.example.demo.utils.AsyncExecutor;
+import com.example.demo.utils.BatchParam;
+import com.example.demo.utils.CollectionUtil;
 import com.example.demo.utils.SqlSessionFactoryUtil;
+import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.SqlSession;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public class DepartmentService {
 
@@ -13,7 +23,7 @@ public class DepartmentService {
      * 根据ID查询部门
      */
     public Department getDepartmentById(Long id) {
-        try (SqlSession sqlSession = SqlSessionFactoryUtil.getSqlSessionFactory().openSession()) {
+        try (SqlSession sqlSession = SqlSessionFactoryUtil.openSession()) {
             DepartmentMapper departmentMapper = sqlSession.getMapper(DepartmentMapper.class);
             return departmentMapper.selectById(id);
         }
@@ -23,7 +33,7 @@ public class DepartmentService {
      * 查询所有部门
      */
     public List<Department> getAllDepartments() {
-        try (SqlSession sqlSession = SqlSessionFactoryUtil.getSqlSessionFactory().openSession()) {
+        try (SqlSession sqlSession = SqlSessionFactoryUtil.openSession()) {
             DepartmentMapper departmentMapper = sqlSession.getMapper(DepartmentMapper.class);
             return departmentMapper.selectAll();
         }
@@ -33,10 +43,11 @@ public class DepartmentService {
      * 创建部门
      */
     public int createDepartment(Department department) {
-        try (SqlSession sqlSession = SqlSessionFactoryUtil.getSqlSessionFactory().openSession()) {
+        try (SqlSession sqlSession = SqlSessionFactoryUtil.openSession()) {
             DepartmentMapper departmentMapper = sqlSession.getMapper(DepartmentMapper.class);
             int result = departmentMapper.insert(department);
             sqlSession.commit();
+            departmentsChanged();
             return result;
         }
     }
@@ -45,10 +56,11 @@ public class DepartmentService {
      * 更新部门
      */
     public int updateDepartment(Department department) {
-        try (SqlSession sqlSession = SqlSessionFactoryUtil.getSqlSessionFactory().openSession()) {
+        try (SqlSession sqlSession = SqlSessionFactoryUtil.openSession()) {
             DepartmentMapper departmentMapper = sqlSession.getMapper(DepartmentMapper.class);
             int result = departmentMapper.update(department);
             sqlSession.commit();
+            departmentsChanged();
             return result;
         }
     }
@@ -57,10 +69,81 @@ public class DepartmentService {
      * 删除部门
      */
     public int deleteDepartment(Long id) {
-        try (SqlSession sqlSession = SqlSessionFactoryUtil.getSqlSessionFactory().openSession()) {
+        try (SqlSession sqlSession = SqlSessionFactoryUtil.openSession()) {
             DepartmentMapper departmentMapper = sqlSession.getMapper(DepartmentMapper.class);
             int result = departmentMapper.deleteById(id);
             sqlSession.commit();
+            departmentsChanged();
+            return result;
+        }
+    }
+
+    /**
+     * 批量更新部门（默认参数）
+     */
+    public int updateDepartments(List<Department> departments) {
+        return updateDepartments(departments, new BatchParam());
+    }
+
+    /**
+     * 批量更新部门：使用BATCH执行器按JDBC批处理发送，所有分批一次提交
+     */
+    public int updateDepartments(List<Department> departments, BatchParam batchParam) {
+        if (departments == null || departments.isEmpty()) {
+            return 0;
+        }
+        try (SqlSession sqlSession = SqlSessionFactoryUtil.openSession(ExecutorType.BATCH)) {
+            DepartmentMapper departmentMapper = sqlSession.getMapper(DepartmentMapper.class);
+            int result = 0;
+            for (List<Department> chunk : CollectionUtil.partition(departments, batchParam.getChunkSize())) {
+                chunk.forEach(departmentMapper::update);
+                if (batchParam.isFlushEachChunk()) {
+                    result += CollectionUtil.sumUpdateCounts(sqlSession.flushStatements());
+                }
+            }
+            result += CollectionUtil.sumUpdateCounts(sqlSession.flushStatements());
+            sqlSession.commit();
+            departmentsChanged();
+            return result;
+        }
+    }
+
+    /**
+     * 批量删除部门（默认参数）
+     */
+    public int deleteDepartments(Collection<Long> ids) {
+        return deleteDepartments(ids, new BatchParam());
+    }
+
+    /**
+     * 批量删除部门：按chunkSize分批执行 IN (...) 删除，所有分批在同一个事务中提交
+     */
+    public int deleteDepartments(Collection<Long> ids, BatchParam batchParam) {
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+        try (SqlSession sqlSession = SqlSessionFactoryUtil.openSession()) {
+            DepartmentMapper departmentMapper = sqlSession.getMapper(DepartmentMapper.class);
+            int result = 0;
+            for (List<Long> chunk : CollectionUtil.partition(new ArrayList<>(new LinkedHashSet<>(ids)),
+                    batchParam.getChunkSize())) {
+                result += departmentMapper.deleteByIds(chunk);
+            }
+            sqlSession.commit();
+            departmentsChanged();
+            return result;
+        }
+    }
+
+    /**
+     * 删除没有用户的部门，一条DELETE完成
+     */
+    public int deleteDepartmentsWithoutUsers() {
+        try (SqlSession sqlSession = SqlSessionFactoryUtil.openSession()) {
+            DepartmentMapper departmentMapper = sqlSession.getMapper(DepartmentMapper.class);
+            int result = departmentMapper.deleteWithoutUsers();
+            sqlSession.commit();
+            departmentsChanged();
             return result;
         }
     }
@@ -69,7 +152,7 @@ public class DepartmentService {
      * 根据ID查询部门及其关联的用户（一对多关系）
      */
     public Department getDepartmentWithUsers(Long id) {
-        try (SqlSession sqlSession = SqlSessionFactoryUtil.getSqlSessionFactory().openSession()) {
+        try (SqlSession sqlSession = SqlSessionFactoryUtil.openSession()) {
             DepartmentMapper departmentMapper = sqlSession.getMapper(DepartmentMapper.class);
             return departmentMapper.selectWithUsers(id);
         }
@@ -79,9 +162,120 @@ public class DepartmentService {
      * 查询所有部门及其关联的用户（一对多关系）
      */
     public List<Department> getAllDepartmentsWithUsers() {
-        try (SqlSession sqlSession = SqlSessionFactoryUtil.getSqlSessionFactory().openSession()) {
+        try (SqlSession sqlSession = SqlSessionFactoryUtil.openSession()) {
             DepartmentMapper departmentMapper = sqlSession.getMapper(DepartmentMapper.class);
             return departmentMapper.selectAllWithUsers();
         }
     }
+
+    /**
+     * 流式遍历所有部门及其用户，每个部门的用户组装完成后立即回调，内存占用取决于最大的部门
+     * @param consumer 部门处理逻辑
+     */
+    public void forEachDepartmentWithUsers(Consumer<Department> consumer) {
+        try (SqlSession sqlSession = SqlSessionFactoryUtil.openSession()) {
+            DepartmentMapper departmentMapper = sqlSession.getMapper(DepartmentMapper.class);
+            departmentMapper.streamAllWithUsers(context -> consumer.accept(context.getResultObject()));
+        }
+    }
+
+    // ========== 异步方法：在 AsyncExecutor 上执行对应的同步方法，每个任务使用并关闭自己的SqlSession ==========
+
+    /**
+     * {@link #getDepartmentById} 的异步版本
+     */
+    public CompletableFuture<Department> getDepartmentByIdAsync(Long id) {
+        return AsyncExecutor.supplyAsync(() -> getDepartmentById(id));
+    }
+
+    /**
+     * {@link #getAllDepartments} 的异步版本
+     */
+    public CompletableFuture<List<Department>> getAllDepartmentsAsync() {
+        return AsyncExecutor.supplyAsync(this::getAllDepartments);
+    }
+
+    /**
+     * {@link #createDepartment} 的异步版本
+     */
+    public CompletableFuture<Integer> createDepartmentAsync(Department department) {
+        return AsyncExecutor.supplyAsync(() -> createDepartment(department));
+    }
+
+    /**
+     * {@link #updateDepartment} 的异步版本
+     */
+    public CompletableFuture<Integer> updateDepartmentAsync(Department department) {
+        return AsyncExecutor.supplyAsync(() -> updateDepartment(department));
+    }
+
+    /**
+     * {@link #deleteDepartment} 的异步版本
+     */
+    public CompletableFuture<Integer> deleteDepartmentAsync(Long id) {
+        return AsyncExecutor.supplyAsync(() -> deleteDepartment(id));
+    }
+
+    /**
+     * {@link #updateDepartments} 的异步版本
+     */
+    public CompletableFuture<Integer> updateDepartmentsAsync(List<Department> departments) {
+        return AsyncExecutor.supplyAsync(() -> updateDepartments(departments));
+    }
+
+    /**
+     * {@link #updateDepartments} 的异步版本
+     */
+    public CompletableFuture<Integer> updateDepartmentsAsync(List<Department> departments, BatchParam batchParam) {
+        return AsyncExecutor.supplyAsync(() -> updateDepartments(departments, batchParam));
+    }
+
+    /**
+     * {@link #deleteDepartments} 的异步版本
+     */
+    public CompletableFuture<Integer> deleteDepartmentsAsync(Collection<Long> ids) {
+        return AsyncExecutor.supplyAsync(() -> deleteDepartments(ids));
+    }
+
+    /**
+     * {@link #deleteDepartments} 的异步版本
+     */
+    public CompletableFuture<Integer> deleteDepartmentsAsync(Collection<Long> ids, BatchParam batchParam) {
+        return AsyncExecutor.supplyAsync(() -> deleteDepartments(ids, batchParam));
+    }
+
+    /**
+     * {@link #deleteDepartmentsWithoutUsers} 的异步版本
+     */
+    public CompletableFuture<Integer> deleteDepartmentsWithoutUsersAsync() {
+        return AsyncExecutor.supplyAsync(this::deleteDepartmentsWithoutUsers);
+    }
+
+    /**
+     * {@link #getDepartmentWithUsers} 的异步版本
+     */
+    public CompletableFuture<Department> getDepartmentWithUsersAsync(Long id) {
+        return AsyncExecutor.supplyAsync(() -> getDepartmentWithUsers(id));
+    }
+
+    /**
+     * {@link #getAllDepartmentsWithUsers} 的异步版本
+     */
+    public CompletableFuture<List<Department>> getAllDepartmentsWithUsersAsync() {
+        return AsyncExecutor.supplyAsync(this::getAllDepartmentsWithUsers);
+    }
+
+    /**
+     * {@link #forEachDepartmentWithUsers} 的异步版本
+     */
+    public CompletableFuture<Void> forEachDepartmentWithUsersAsync(Consumer<Department> consumer) {
+        return AsyncExecutor.runAsync(() -> forEachDepartmentWithUsers(consumer));
+    }
+
+    /**
+     * 部门写操作提交后重新加载部门引用缓存
+     */
+    private void departmentsChanged() {
+        DepartmentReferenceCache.afterWrite(SqlSessionFactoryUtil.getSqlSessionFactory().getConfiguration());
+    }
 }
\ No newline at end of file
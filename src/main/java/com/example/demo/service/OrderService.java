@@ -2,38 +2,123 @@ package com.example.demo.service;
 
 import com.example.demo.entity.Order;
 import com.example.demo.mapper.OrderMapper;
+import com.example.demo.utils.AsyncExecutor;
+import com.example.demo.utils.BatchEntityLoader;
+import com.example.demo.utils.BatchParam;
+import com.example.demo.utils.CollectionUtil;
 import com.example.demo.utils.SqlSessionFactoryUtil;
+import com.example.demo.utils.UnitOfWork;
+import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public class OrderService {
+    // 批量按ID查询的语句，实体缓存在该命名空间的二级缓存中（每个分片的配置各有一个）
+    private static final String SELECT_BY_IDS = OrderMapper.class.getName() + ".selectByIds";
+
+    private final SqlSessionFactory sqlSessionFactory;
+
+    public OrderService() {
+        this(SqlSessionFactoryUtil.getSqlSessionFactory());
+    }
+
+    /**
+     * 使用指定的SqlSessionFactory，例如订单分片中的某一个分片
+     */
+    public OrderService(SqlSessionFactory sqlSessionFactory) {
+        this.sqlSessionFactory = sqlSessionFactory;
+    }
 
     /**
      * 根据ID查询订单
      */
     public Order getOrderById(Long id) {
-        try (SqlSession sqlSession = SqlSessionFactoryUtil.getSqlSessionFactory().openSession()) {
+        try (SqlSession sqlSession = UnitOfWork.openSession(sqlSessionFactory)) {
             OrderMapper orderMapper = sqlSession.getMapper(OrderMapper.class);
             return orderMapper.selectById(id);
         }
     }
 
+    /**
+     * 根据ID集合批量查询订单（默认参数）
+     */
+    public List<Order> getOrdersByIds(Collection<Long> ids) {
+        return getOrdersByIds(ids, new BatchParam());
+    }
+
+    /**
+     * 根据ID集合批量查询订单：先从OrderMapper二级缓存的实体中取，未命中的ID按chunkSize分批用 IN (...) 查询后放入缓存，
+     * 结果按ids顺序排列，不存在的ID跳过；工作单元中不使用缓存，以便读到本事务中未提交的修改
+     */
+    public List<Order> getOrdersByIds(Collection<Long> ids, BatchParam batchParam) {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        Map<Long, Order> found;
+        if (UnitOfWork.isActive()) {
+            found = new HashMap<>();
+            loadOrdersByIds(distinctIds, batchParam.getChunkSize()).forEach(order -> found.put(order.getId(), order));
+        } else {
+            found = BatchEntityLoader.getAll(sqlSessionFactory.getConfiguration(), SELECT_BY_IDS,
+                    Order::getId, distinctIds, misses -> loadOrdersByIds(misses, batchParam.getChunkSize()));
+        }
+        List<Order> orders = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Order order = found.get(id);
+            if (order != null) {
+                orders.add(order);
+            }
+        }
+        return orders;
+    }
+
+    private List<Order> loadOrdersByIds(List<Long> ids, int chunkSize) {
+        try (SqlSession sqlSession = UnitOfWork.openSession(sqlSessionFactory)) {
+            OrderMapper orderMapper = sqlSession.getMapper(OrderMapper.class);
+            List<Order> orders = new ArrayList<>(ids.size());
+            for (List<Long> chunk : CollectionUtil.partition(ids, chunkSize)) {
+                orders.addAll(orderMapper.selectByIds(chunk));
+            }
+            return orders;
+        }
+    }
+
     /**
      * 查询所有订单
      */
     public List<Order> getAllOrders() {
-        try (SqlSession sqlSession = SqlSessionFactoryUtil.getSqlSessionFactory().openSession()) {
+        try (SqlSession sqlSession = UnitOfWork.openSession(sqlSessionFactory)) {
             OrderMapper orderMapper = sqlSession.getMapper(OrderMapper.class);
             return orderMapper.selectAll();
         }
     }
 
+    /**
+     * 流式遍历所有订单，遍历期间保持SqlSession打开，内存占用与表大小无关
+     */
+    public void forEachOrder(Consumer<Order> consumer) {
+        try (SqlSession sqlSession = UnitOfWork.openSession(sqlSessionFactory)) {
+            OrderMapper orderMapper = sqlSession.getMapper(OrderMapper.class);
+            orderMapper.streamAll(context -> consumer.accept(context.getResultObject()));
+        }
+    }
+
     /**
      * 创建订单
      */
     public int createOrder(Order order) {
-        try (SqlSession sqlSession = SqlSessionFactoryUtil.getSqlSessionFactory().openSession()) {
+        try (SqlSession sqlSession = UnitOfWork.openSession(sqlSessionFactory)) {
             OrderMapper orderMapper = sqlSession.getMapper(OrderMapper.class);
             int result = orderMapper.insert(order);
             sqlSession.commit();
@@ -41,11 +126,48 @@ public class OrderService {
         }
     }
 
+    /**
+     * 批量创建订单（默认参数）
+     */
+    public int createOrders(List<Order> orders) {
+        return createOrders(orders, new BatchParam());
+    }
+
+    /**
+     * 批量创建订单，所有分批在同一个SqlSession和事务中完成，自增ID回填到每个订单
+     */
+    public int createOrders(List<Order> orders, BatchParam batchParam) {
+        if (orders == null || orders.isEmpty()) {
+            return 0;
+        }
+        ExecutorType executorType = batchParam.isUseBatchExecutor() ? ExecutorType.BATCH : ExecutorType.REUSE;
+        try (SqlSession sqlSession = UnitOfWork.openSession(sqlSessionFactory, executorType)) {
+            OrderMapper orderMapper = sqlSession.getMapper(OrderMapper.class);
+            int result = 0;
+            for (List<Order> chunk : CollectionUtil.partition(orders, batchParam.getChunkSize())) {
+                if (batchParam.isUseBatchExecutor()) {
+                    // BATCH执行器不支持多值INSERT回填ID，这里逐条加入JDBC批处理
+                    chunk.forEach(orderMapper::insert);
+                    if (batchParam.isFlushEachChunk()) {
+                        result += CollectionUtil.sumUpdateCounts(sqlSession.flushStatements());
+                    }
+                } else {
+                    result += orderMapper.insertBatch(chunk);
+                }
+            }
+            if (batchParam.isUseBatchExecutor()) {
+                result += CollectionUtil.sumUpdateCounts(sqlSession.flushStatements());
+            }
+            sqlSession.commit();
+            return result;
+        }
+    }
+
     /**
      * 更新订单
      */
     public int updateOrder(Order order) {
-        try (SqlSession sqlSession = SqlSessionFactoryUtil.getSqlSessionFactory().openSession()) {
+        try (SqlSession sqlSession = UnitOfWork.openSession(sqlSessionFactory)) {
             OrderMapper orderMapper = sqlSession.getMapper(OrderMapper.class);
             int result = orderMapper.update(order);
             sqlSession.commit();
@@ -57,7 +179,7 @@ public class OrderService {
      * 删除订单
      */
     public int deleteOrder(Long id) {
-        try (SqlSession sqlSession = SqlSessionFactoryUtil.getSqlSessionFactory().openSession()) {
+        try (SqlSession sqlSession = UnitOfWork.openSession(sqlSessionFactory)) {
             OrderMapper orderMapper = sqlSession.getMapper(OrderMapper.class);
             int result = orderMapper.deleteById(id);
             sqlSession.commit();
@@ -65,11 +187,104 @@ public class OrderService {
         }
     }
 
+    /**
+     * 批量更新订单（默认参数）
+     */
+    public int updateOrders(List<Order> orders) {
+        return updateOrders(orders, new BatchParam());
+    }
+
+    /**
+     * 批量更新订单：各订单更新的字段不同，使用BATCH执行器按JDBC批处理发送，所有分批一次提交
+     */
+    public int updateOrders(List<Order> orders, BatchParam batchParam) {
+        if (orders == null || orders.isEmpty()) {
+            return 0;
+        }
+        try (SqlSession sqlSession = UnitOfWork.openSession(sqlSessionFactory, ExecutorType.BATCH)) {
+            OrderMapper orderMapper = sqlSession.getMapper(OrderMapper.class);
+            int result = 0;
+            for (List<Order> chunk : CollectionUtil.partition(orders, batchParam.getChunkSize())) {
+                chunk.forEach(orderMapper::update);
+                if (batchParam.isFlushEachChunk()) {
+                    result += CollectionUtil.sumUpdateCounts(sqlSession.flushStatements());
+                }
+            }
+            result += CollectionUtil.sumUpdateCounts(sqlSession.flushStatements());
+            sqlSession.commit();
+            return result;
+        }
+    }
+
+    /**
+     * 批量删除订单（默认参数）
+     */
+    public int deleteOrders(Collection<Long> ids) {
+        return deleteOrders(ids, new BatchParam());
+    }
+
+    /**
+     * 批量删除订单：按chunkSize分批执行 IN (...) 删除，所有分批在同一个事务中提交
+     */
+    public int deleteOrders(Collection<Long> ids, BatchParam batchParam) {
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+        try (SqlSession sqlSession = UnitOfWork.openSession(sqlSessionFactory)) {
+            OrderMapper orderMapper = sqlSession.getMapper(OrderMapper.class);
+            int result = 0;
+            for (List<Long> chunk : CollectionUtil.partition(new ArrayList<>(new LinkedHashSet<>(ids)),
+                    batchParam.getChunkSize())) {
+                result += orderMapper.deleteByIds(chunk);
+            }
+            sqlSession.commit();
+            return result;
+        }
+    }
+
+    /**
+     * 删除用户集合的所有订单，按chunkSize分批，所有分批在同一个事务中提交
+     */
+    public int deleteOrdersByUserIds(Collection<Long> userIds, BatchParam batchParam) {
+        if (userIds == null || userIds.isEmpty()) {
+            return 0;
+        }
+        try (SqlSession sqlSession = UnitOfWork.openSession(sqlSessionFactory)) {
+            OrderMapper orderMapper = sqlSession.getMapper(OrderMapper.class);
+            int result = 0;
+            for (List<Long> chunk : CollectionUtil.partition(new ArrayList<>(new LinkedHashSet<>(userIds)),
+                    batchParam.getChunkSize())) {
+                result += orderMapper.deleteByUserIds(chunk);
+            }
+            sqlSession.commit();
+            return result;
+        }
+    }
+
+    /**
+     * 删除用户集合的所有订单（默认参数）
+     */
+    public int deleteOrdersByUserIds(Collection<Long> userIds) {
+        return deleteOrdersByUserIds(userIds, new BatchParam());
+    }
+
+    /**
+     * 删除下单时间早于cutoff的订单（数据保留任务），一条DELETE完成
+     */
+    public int deleteOrdersBefore(Date cutoff) {
+        try (SqlSession sqlSession = UnitOfWork.openSession(sqlSessionFactory)) {
+            OrderMapper orderMapper = sqlSession.getMapper(OrderMapper.class);
+            int result = orderMapper.deleteByOrderTimeBefore(cutoff);
+            sqlSession.commit();
+            return result;
+        }
+    }
+
     /**
      * 根据用户ID查询订单（一对多关系）
      */
     public List<Order> getOrdersByUserId(Long userId) {
-        try (SqlSession sqlSession = SqlSessionFactoryUtil.getSqlSessionFactory().openSession()) {
+        try (SqlSession sqlSession = UnitOfWork.openSession(sqlSessionFactory)) {
             OrderMapper orderMapper = sqlSession.getMapper(OrderMapper.class);
             return orderMapper.selectByUserId(userId);
         }
@@ -79,7 +294,7 @@ public class OrderService {
      * 根据ID查询订单及其关联的用户（多对一关系）
      */
     public Order getOrderWithUser(Long id) {
-        try (SqlSession sqlSession = SqlSessionFactoryUtil.getSqlSessionFactory().openSession()) {
+        try (SqlSession sqlSession = UnitOfWork.openSession(sqlSessionFactory)) {
             OrderMapper orderMapper = sqlSession.getMapper(OrderMapper.class);
             return orderMapper.selectWithUser(id);
         }
@@ -89,9 +304,161 @@ public class OrderService {
      * 查询所有订单及其关联的用户（多对一关系）
      */
     public List<Order> getAllOrdersWithUser() {
-        try (SqlSession sqlSession = SqlSessionFactoryUtil.getSqlSessionFactory().openSession()) {
+        try (SqlSession sqlSession = UnitOfWork.openSession(sqlSessionFactory)) {
             OrderMapper orderMapper = sqlSession.getMapper(OrderMapper.class);
             return orderMapper.selectAllWithUser();
         }
     }
+
+    /**
+     * 流式遍历所有订单及其关联的用户
+     */
+    public void forEachOrderWithUser(Consumer<Order> consumer) {
+        try (SqlSession sqlSession = UnitOfWork.openSession(sqlSessionFactory)) {
+            OrderMapper orderMapper = sqlSession.getMapper(OrderMapper.class);
+            orderMapper.streamAllWithUser(context -> consumer.accept(context.getResultObject()));
+        }
+    }
+
+    // ========== 异步方法：在 AsyncExecutor 上执行对应的同步方法，每个任务使用并关闭自己的SqlSession ==========
+
+    /**
+     * {@link #getOrderById} 的异步版本
+     */
+    public CompletableFuture<Order> getOrderByIdAsync(Long id) {
+        return AsyncExecutor.supplyAsync(() -> getOrderById(id));
+    }
+
+    /**
+     * {@link #getOrdersByIds} 的异步版本
+     */
+    public CompletableFuture<List<Order>> getOrdersByIdsAsync(Collection<Long> ids) {
+        return AsyncExecutor.supplyAsync(() -> getOrdersByIds(ids));
+    }
+
+    /**
+     * {@link #getAllOrders} 的异步版本
+     */
+    public CompletableFuture<List<Order>> getAllOrdersAsync() {
+        return AsyncExecutor.supplyAsync(this::getAllOrders);
+    }
+
+    /**
+     * {@link #forEachOrder} 的异步版本
+     */
+    public CompletableFuture<Void> forEachOrderAsync(Consumer<Order> consumer) {
+        return AsyncExecutor.runAsync(() -> forEachOrder(consumer));
+    }
+
+    /**
+     * {@link #createOrder} 的异步版本
+     */
+    public CompletableFuture<Integer> createOrderAsync(Order order) {
+        return AsyncExecutor.supplyAsync(() -> createOrder(order));
+    }
+
+    /**
+     * {@link #createOrders} 的异步版本
+     */
+    public CompletableFuture<Integer> createOrdersAsync(List<Order> orders) {
+        return AsyncExecutor.supplyAsync(() -> createOrders(orders));
+    }
+
+    /**
+     * {@link #createOrders} 的异步版本
+     */
+    public CompletableFuture<Integer> createOrdersAsync(List<Order> orders, BatchParam batchParam) {
+        return AsyncExecutor.supplyAsync(() -> createOrders(orders, batchParam));
+    }
+
+    /**
+     * {@link #updateOrder} 的异步版本
+     */
+    public CompletableFuture<Integer> updateOrderAsync(Order order) {
+        return AsyncExecutor.supplyAsync(() -> updateOrder(order));
+    }
+
+    /**
+     * {@link #deleteOrder} 的异步版本
+     */
+    public CompletableFuture<Integer> deleteOrderAsync(Long id) {
+        return AsyncExecutor.supplyAsync(() -> deleteOrder(id));
+    }
+
+    /**
+     * {@link #updateOrders} 的异步版本
+     */
+    public CompletableFuture<Integer> updateOrdersAsync(List<Order> orders) {
+        return AsyncExecutor.supplyAsync(() -> updateOrders(orders));
+    }
+
+    /**
+     * {@link #updateOrders} 的异步版本
+     */
+    public CompletableFuture<Integer> updateOrdersAsync(List<Order> orders, BatchParam batchParam) {
+        return AsyncExecutor.supplyAsync(() -> updateOrders(orders, batchParam));
+    }
+
+    /**
+     * {@link #deleteOrders} 的异步版本
+     */
+    public CompletableFuture<Integer> deleteOrdersAsync(Collection<Long> ids) {
+        return AsyncExecutor.supplyAsync(() -> deleteOrders(ids));
+    }
+
+    /**
+     * {@link #deleteOrders} 的异步版本
+     */
+    public CompletableFuture<Integer> deleteOrdersAsync(Collection<Long> ids, BatchParam batchParam) {
+        return AsyncExecutor.supplyAsync(() -> deleteOrders(ids, batchParam));
+    }
+
+    /**
+     * {@link #deleteOrdersByUserIds} 的异步版本
+     */
+    public CompletableFuture<Integer> deleteOrdersByUserIdsAsync(Collection<Long> userIds) {
+        return AsyncExecutor.supplyAsync(() -> deleteOrdersByUserIds(userIds));
+    }
+
+    /**
+     * {@link #deleteOrdersByUserIds} 的异步版本
+     */
+    public CompletableFuture<Integer> deleteOrdersByUserIdsAsync(Collection<Long> userIds, BatchParam batchParam) {
+        return AsyncExecutor.supplyAsync(() -> deleteOrdersByUserIds(userIds, batchParam));
+    }
+
+    /**
+     * {@link #deleteOrdersBefore} 的异步版本
+     */
+    public CompletableFuture<Integer> deleteOrdersBeforeAsync(Date cutoff) {
+        return AsyncExecutor.supplyAsync(() -> deleteOrdersBefore(cutoff));
+    }
+
+    /**
+     * {@link #getOrdersByUserId} 的异步版本
+     */
+    public CompletableFuture<List<Order>> getOrdersByUserIdAsync(Long userId) {
+        return AsyncExecutor.supplyAsync(() -> getOrdersByUserId(userId));
+    }
+
+    /**
+     * {@link #getOrderWithUser} 的异步版本
+     */
+    public CompletableFuture<Order> getOrderWithUserAsync(Long id) {
+        return AsyncExecutor.supplyAsync(() -> getOrderWithUser(id));
+    }
+
+    /**
+     * {@link #getAllOrdersWithUser} 的异步版本
+     */
+    public CompletableFuture<List<Order>> getAllOrdersWithUserAsync() {
+        return AsyncExecutor.supplyAsync(this::getAllOrdersWithUser);
+    }
+
+    /**
+     * {@link #forEachOrderWithUser} 的异步版本
+     */
+    public CompletableFuture<Void> forEachOrderWithUserAsync(Consumer<Order> consumer) {
+        return AsyncExecutor.runAsync(() -> forEachOrderWithUser(consumer));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,294 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Order;
+import com.example.demo.mapper.OrderMapper;
+import com.example.demo.shard.ShardRouter;
+import com.example.demo.shard.ShardedSqlSessionFactory;
+import com.example.demo.utils.BatchParam;
+import com.example.demo.utils.CollectionUtil;
+import com.example.demo.utils.UnitOfWork;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.SqlSession;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 按 user_id 分片的订单服务，接口与 OrderService 相同
+ * 按ID或用户ID的操作只访问一个分片；查询所有订单时并行查询各分片再合并，按ID排序的查询用归并保持顺序。
+ * 批量创建时每个分片单独提交，不同分片之间不是一个事务。
+ */
+public class ShardedOrderService {
+    private static final Comparator<Order> BY_ID = Comparator.comparing(Order::getId);
+
+    private final ShardedSqlSessionFactory shards;
+    private final ShardRouter router;
+    private final List<OrderService> services;
+
+    public ShardedOrderService() {
+        this(ShardedSqlSessionFactory.getInstance());
+    }
+
+    public ShardedOrderService(ShardedSqlSessionFactory shards) {
+        this.shards = shards;
+        this.router = shards.getRouter();
+        this.services = new ArrayList<>(shards.getShardCount());
+        for (int shard = 0; shard < shards.getShardCount(); shard++) {
+            services.add(new OrderService(shards.getFactory(shard)));
+        }
+    }
+
+    /**
+     * 根据ID查询订单
+     */
+    public Order getOrderById(Long id) {
+        return services.get(router.shardOfOrder(id)).getOrderById(id);
+    }
+
+    /**
+     * 根据ID集合批量查询订单（默认参数）
+     */
+    public List<Order> getOrdersByIds(Collection<Long> ids) {
+        return getOrdersByIds(ids, new BatchParam());
+    }
+
+    /**
+     * 根据ID集合批量查询订单，按订单所在分片分组后并行查询，结果按ids顺序排列，不存在的ID跳过
+     */
+    public List<Order> getOrdersByIds(Collection<Long> ids, BatchParam batchParam) {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Integer, List<Long>> groups = router.groupByShard(ids, router::shardOfOrder);
+        Map<Long, Order> found = new HashMap<>(ids.size() * 2);
+        shards.scatter(shard -> {
+            List<Long> group = groups.get(shard);
+            return group == null ? Collections.<Order>emptyList() : services.get(shard).getOrdersByIds(group, batchParam);
+        }).forEach(orders -> orders.forEach(order -> found.put(order.getId(), order)));
+        List<Order> orders = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Order order = found.get(id);
+            if (order != null) {
+                orders.add(order);
+            }
+        }
+        return orders;
+    }
+
+    /**
+     * 查询所有订单（不保证顺序）
+     */
+    public List<Order> getAllOrders() {
+        List<Order> orders = new ArrayList<>();
+        shards.scatter(shard -> services.get(shard).getAllOrders()).forEach(orders::addAll);
+        return orders;
+    }
+
+    /**
+     * 逐个分片流式遍历所有订单（不保证顺序）
+     */
+    public void forEachOrder(Consumer<Order> consumer) {
+        services.forEach(service -> service.forEachOrder(consumer));
+    }
+
+    /**
+     * 创建订单，写入用户所在分片
+     */
+    public int createOrder(Order order) {
+        int shard = router.shardOfUser(order.getUserId());
+        return insertChecked(shard, Collections.singletonList(order), () -> services.get(shard).createOrder(order));
+    }
+
+    /**
+     * 批量创建订单（默认参数）
+     */
+    public int createOrders(List<Order> orders) {
+        return createOrders(orders, new BatchParam());
+    }
+
+    /**
+     * 批量创建订单，按用户所在分片分组后并行写入，每个分片一个事务
+     */
+    public int createOrders(List<Order> orders, BatchParam batchParam) {
+        if (orders == null || orders.isEmpty()) {
+            return 0;
+        }
+        Map<Integer, List<Order>> groups = router.groupByShard(orders, order -> router.shardOfUser(order.getUserId()));
+        List<Integer> counts = shards.scatter(shard -> {
+            List<Order> group = groups.get(shard);
+            return group == null ? 0 : insertChecked(shard, group, () -> services.get(shard).createOrders(group, batchParam));
+        });
+        return counts.stream().mapToInt(Integer::intValue).sum();
+    }
+
+    /**
+     * 更新订单，不允许把订单改到其他分片的用户名下
+     */
+    public int updateOrder(Order order) {
+        int shard = router.shardOfOrder(order.getId());
+        if (order.getUserId() != null && router.shardOfUser(order.getUserId()) != shard) {
+            throw new IllegalArgumentException("订单 " + order.getId() + " 改为用户 " + order.getUserId()
+                    + " 后属于其他分片，需要删除后重新创建");
+        }
+        return services.get(shard).updateOrder(order);
+    }
+
+    /**
+     * 删除订单
+     */
+    public int deleteOrder(Long id) {
+        return services.get(router.shardOfOrder(id)).deleteOrder(id);
+    }
+
+    /**
+     * 批量更新订单（默认参数）
+     */
+    public int updateOrders(List<Order> orders) {
+        return updateOrders(orders, new BatchParam());
+    }
+
+    /**
+     * 批量更新订单，按订单所在分片分组后并行写入，每个分片一个事务；不允许把订单改到其他分片的用户名下
+     */
+    public int updateOrders(List<Order> orders, BatchParam batchParam) {
+        if (orders == null || orders.isEmpty()) {
+            return 0;
+        }
+        Map<Integer, List<Order>> groups = router.groupByShard(orders, order -> router.shardOfOrder(order.getId()));
+        groups.forEach((shard, group) -> group.forEach(order -> {
+            if (order.getUserId() != null && router.shardOfUser(order.getUserId()) != shard) {
+                throw new IllegalArgumentException("订单 " + order.getId() + " 改为用户 " + order.getUserId()
+                        + " 后属于其他分片，需要删除后重新创建");
+            }
+        }));
+        return sumByShard(groups, (service, group) -> service.updateOrders(group, batchParam));
+    }
+
+    /**
+     * 批量删除订单（默认参数）
+     */
+    public int deleteOrders(Collection<Long> ids) {
+        return deleteOrders(ids, new BatchParam());
+    }
+
+    /**
+     * 批量删除订单，按订单所在分片分组后并行删除，每个分片一个事务
+     */
+    public int deleteOrders(Collection<Long> ids, BatchParam batchParam) {
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+        Map<Integer, List<Long>> groups = router.groupByShard(ids, router::shardOfOrder);
+        return sumByShard(groups, (service, group) -> service.deleteOrders(group, batchParam));
+    }
+
+    /**
+     * 删除用户集合的所有订单（默认参数）
+     */
+    public int deleteOrdersByUserIds(Collection<Long> userIds) {
+        return deleteOrdersByUserIds(userIds, new BatchParam());
+    }
+
+    /**
+     * 删除用户集合的所有订单，按用户所在分片分组后并行删除，每个分片一个事务
+     */
+    public int deleteOrdersByUserIds(Collection<Long> userIds, BatchParam batchParam) {
+        if (userIds == null || userIds.isEmpty()) {
+            return 0;
+        }
+        Map<Integer, List<Long>> groups = router.groupByShard(userIds, router::shardOfUser);
+        return sumByShard(groups, (service, group) -> service.deleteOrdersByUserIds(group, batchParam));
+    }
+
+    /**
+     * 删除下单时间早于cutoff的订单，各分片并行执行
+     */
+    public int deleteOrdersBefore(Date cutoff) {
+        return shards.scatter(shard -> services.get(shard).deleteOrdersBefore(cutoff))
+                .stream().mapToInt(Integer::intValue).sum();
+    }
+
+    /**
+     * 根据用户ID查询订单（一对多关系）
+     */
+    public List<Order> getOrdersByUserId(Long userId) {
+        return services.get(router.shardOfUser(userId)).getOrdersByUserId(userId);
+    }
+
+    /**
+     * 根据ID查询订单及其关联的用户（多对一关系）
+     */
+    public Order getOrderWithUser(Long id) {
+        return services.get(router.shardOfOrder(id)).getOrderWithUser(id);
+    }
+
+    /**
+     * 查询所有订单及其关联的用户，各分片按ID排序的结果归并后仍按ID排序
+     */
+    public List<Order> getAllOrdersWithUser() {
+        return CollectionUtil.mergeSorted(shards.scatter(shard -> services.get(shard).getAllOrdersWithUser()), BY_ID);
+    }
+
+    /**
+     * 按ID顺序流式遍历所有订单及其关联的用户，每个分片打开一个游标，归并时每个游标只缓冲一行
+     */
+    public void forEachOrderWithUser(Consumer<Order> consumer) {
+        List<SqlSession> sessions = new ArrayList<>(shards.getShardCount());
+        try {
+            List<Iterator<Order>> cursors = new ArrayList<>(shards.getShardCount());
+            for (int shard = 0; shard < shards.getShardCount(); shard++) {
+                SqlSession sqlSession = shards.openSession(shard);
+                sessions.add(sqlSession);
+                Cursor<Order> cursor = sqlSession.getMapper(OrderMapper.class).streamAllWithUser();
+                cursors.add(cursor.iterator());
+            }
+            CollectionUtil.mergeSorted(cursors, BY_ID, consumer);
+        } finally {
+            sessions.forEach(SqlSession::close);
+        }
+    }
+
+    /**
+     * 各分组在所属分片上并行执行，返回影响行数之和
+     */
+    private <T> int sumByShard(Map<Integer, List<T>> groups, BiFunction<OrderService, List<T>, Integer> action) {
+        List<Integer> counts = shards.scatter(shard -> {
+            List<T> group = groups.get(shard);
+            return group == null ? 0 : action.apply(services.get(shard), group);
+        });
+        return counts.stream().mapToInt(Integer::intValue).sum();
+    }
+
+    /**
+     * 在工作单元中写入分片，提交前检查生成的ID；有ID不属于该分片时抛出异常，工作单元回滚，不会留下按ID找不到的订单
+     */
+    private int insertChecked(int shard, List<Order> orders, Supplier<Integer> insert) {
+        try (UnitOfWork unitOfWork = UnitOfWork.begin()) {
+            int result = insert.get();
+            orders.forEach(order -> checkGeneratedId(order, shard));
+            unitOfWork.commit();
+            return result;
+        }
+    }
+
+    /**
+     * 自增ID必须落在写入的分片上，否则之后按ID找不到该订单，说明分片的自增步长没有按分片数配置
+     */
+    private void checkGeneratedId(Order order, int shard) {
+        if (order.getId() != null && router.shardOfOrder(order.getId()) != shard) {
+            throw new IllegalStateException("分片 " + shard + " 生成的订单ID " + order.getId()
+                    + " 不属于该分片，请将 orders.id 的自增步长设为 " + router.getShardCount()
+                    + "、起始值设为 " + router.firstIdOf(shard));
+        }
+    }
+}
\ No newline at end of file
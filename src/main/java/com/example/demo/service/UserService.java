@@ -1,32 +1,98 @@
 package com.example.demo.service;
 
+import com.example.demo.entity.Department;
+import com.example.demo.entity.Order;
 import com.example.demo.entity.User;
+import com.example.demo.mapper.DepartmentMapper;
+import com.example.demo.mapper.OrderMapper;
 import com.example.demo.mapper.UserMapper;
+import com.example.demo.utils.AsyncExecutor;
+import com.example.demo.utils.BatchEntityLoader;
+import com.example.demo.utils.BatchParam;
+import com.example.demo.utils.CollectionUtil;
+import com.example.demo.utils.CountCache;
+import com.example.demo.utils.CountStrategy;
+import com.example.demo.utils.FetchMode;
 import com.example.demo.utils.Page;
 import com.example.demo.utils.PageParam;
+import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.SqlSession;
 import com.example.demo.utils.SqlSessionFactoryUtil;
+import com.example.demo.utils.UnitOfWork;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public class UserService {
+    // CACHED策略使用的用户总数缓存，插入和删除用户时失效
+    private static final CountCache USER_COUNT_CACHE = new CountCache(60_000);
+    // 批量按ID查询的语句，实体缓存在该命名空间的二级缓存中
+    private static final String SELECT_BY_IDS = UserMapper.class.getName() + ".selectByIds";
+
     /**
      * 分页查询用户
      * @param pageParam 分页参数
      * @return 分页结果
      */
     public Page<User> getUsersByPage(PageParam pageParam) {
-        try (SqlSession sqlSession = SqlSessionFactoryUtil.getSqlSessionFactory().openSession()) {
+        try (SqlSession sqlSession = SqlSessionFactoryUtil.openSession()) {
             UserMapper mapper = sqlSession.getMapper(UserMapper.class);
 
-            // 获取分页数据
+            // 获取分页数据，总数不精确时会多取一条
             List<User> users = mapper.selectByPage(pageParam);
+            boolean hasMore = users.size() > pageParam.getPageSize();
+            List<User> pageData = trimToPageSize(users, pageParam.getPageSize());
 
             // 获取总记录数
-            long total = mapper.selectCount();
+            CountStrategy countStrategy = pageParam.getCountStrategy();
+            long total;
+            switch (countStrategy) {
+                case NONE:
+                    return new Page<>(pageData, pageParam.getPageNum(), pageParam.getPageSize(), hasMore);
+                case CACHED:
+                    total = USER_COUNT_CACHE.get(mapper::selectCount);
+                    break;
+                case ESTIMATED:
+                    Long estimated = mapper.selectEstimatedCount();
+                    total = estimated != null ? estimated : mapper.selectCount();
+                    break;
+                default:
+                    total = mapper.selectCount();
+            }
 
-            // 返回分页结果
-            return new Page<>(users, total, pageParam.getPageNum(), pageParam.getPageSize());
+            // 返回分页结果，估算的总数不用于判断是否有下一页
+            Page<User> page = new Page<>(pageData, total, pageParam.getPageNum(), pageParam.getPageSize());
+            if (!countStrategy.isExact()) {
+                page.setHasNext(hasMore);
+            }
+            return page;
+        }
+    }
+
+    /**
+     * 游标分页查询用户
+     * @param pageParam 分页参数，lastId为null时查询第一页
+     * @return 分页结果，nextCursor用于请求下一页
+     */
+    public Page<User> getUsersByCursor(PageParam pageParam) {
+        try (SqlSession sqlSession = SqlSessionFactoryUtil.openSession()) {
+            UserMapper mapper = sqlSession.getMapper(UserMapper.class);
+
+            // 多取的一条只用于判断是否有下一页
+            List<User> users = mapper.selectByCursor(pageParam);
+            String nextCursor = null;
+            if (users.size() > pageParam.getPageSize()) {
+                users = trimToPageSize(users, pageParam.getPageSize());
+                nextCursor = PageParam.encodeCursor(users.get(users.size() - 1).getId());
+            }
+
+            return new Page<>(users, pageParam.getPageSize(), pageParam.getLastId() != null, nextCursor);
         }
     }
 
@@ -35,34 +101,140 @@ public class UserService {
      * @return 用户列表
      */
     public List<User> getAllUsers() {
-        try (SqlSession sqlSession = SqlSessionFactoryUtil.getSqlSessionFactory().openSession()) {
+        try (SqlSession sqlSession = SqlSessionFactoryUtil.openSession()) {
             UserMapper mapper = sqlSession.getMapper(UserMapper.class);
             return mapper.selectAll();
         }
     }
 
+    /**
+     * 流式遍历所有用户，遍历期间保持SqlSession打开，内存占用与表大小无关
+     * 回调中不能再使用同一连接执行查询（包括延迟加载）
+     * @param consumer 用户处理逻辑
+     */
+    public void forEachUser(Consumer<User> consumer) {
+        try (SqlSession sqlSession = SqlSessionFactoryUtil.openSession()) {
+            UserMapper mapper = sqlSession.getMapper(UserMapper.class);
+            mapper.streamAll(context -> consumer.accept(context.getResultObject()));
+        }
+    }
+
     /**
      * 根据ID获取用户
      * @param id 用户ID
      * @return 用户
      */
     public User getUserById(Long id) {
-        try (SqlSession sqlSession = SqlSessionFactoryUtil.getSqlSessionFactory().openSession()) {
+        try (SqlSession sqlSession = SqlSessionFactoryUtil.openSession()) {
             UserMapper mapper = sqlSession.getMapper(UserMapper.class);
             return mapper.selectById(id);
         }
     }
 
+    /**
+     * 根据ID集合批量获取用户（默认参数）
+     * @param ids 用户ID集合
+     * @return 按ids顺序排列的用户，不存在的ID跳过
+     */
+    public List<User> getUsersByIds(Collection<Long> ids) {
+        return getUsersByIds(ids, new BatchParam());
+    }
+
+    /**
+     * 根据ID集合批量获取用户：先从UserMapper二级缓存的实体中取，未命中的ID按chunkSize分批用 IN (...) 查询后放入缓存；
+     * 工作单元中不使用缓存，以便读到本事务中未提交的修改
+     * @param ids 用户ID集合
+     * @param batchParam 批量参数，chunkSize为每条SELECT的ID个数
+     * @return 按ids顺序排列的用户，不存在的ID跳过
+     */
+    public List<User> getUsersByIds(Collection<Long> ids, BatchParam batchParam) {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        Map<Long, User> found;
+        if (UnitOfWork.isActive()) {
+            found = new HashMap<>();
+            loadUsersByIds(distinctIds, batchParam.getChunkSize()).forEach(user -> found.put(user.getId(), user));
+        } else {
+            found = BatchEntityLoader.getAll(SqlSessionFactoryUtil.getSqlSessionFactory().getConfiguration(), SELECT_BY_IDS,
+                    User::getId, distinctIds, misses -> loadUsersByIds(misses, batchParam.getChunkSize()));
+        }
+        List<User> users = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            User user = found.get(id);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return users;
+    }
+
+    private List<User> loadUsersByIds(List<Long> ids, int chunkSize) {
+        try (SqlSession sqlSession = SqlSessionFactoryUtil.openSession()) {
+            UserMapper mapper = sqlSession.getMapper(UserMapper.class);
+            List<User> users = new ArrayList<>(ids.size());
+            for (List<Long> chunk : CollectionUtil.partition(ids, chunkSize)) {
+                users.addAll(mapper.selectByIds(chunk));
+            }
+            return users;
+        }
+    }
+
     /**
      * 创建用户
      * @param user 用户
      * @return 影响行数
      */
     public int createUser(User user) {
-        try (SqlSession sqlSession = SqlSessionFactoryUtil.getSqlSessionFactory().openSession()) {
+        try (SqlSession sqlSession = SqlSessionFactoryUtil.openSession()) {
             UserMapper mapper = sqlSession.getMapper(UserMapper.class);
             int result = mapper.insert(user);
             sqlSession.commit();
+            UnitOfWork.afterCompletion(USER_COUNT_CACHE::invalidate);
+            return result;
+        }
+    }
+
+    /**
+     * 批量创建用户（默认参数）
+     * @param users 用户列表
+     * @return 影响行数
+     */
+    public int createUsers(List<User> users) {
+        return createUsers(users, new BatchParam());
+    }
+
+    /**
+     * 批量创建用户，所有分批在同一个SqlSession和事务中完成，自增ID回填到每个用户
+     * @param users 用户列表
+     * @param batchParam 批量参数
+     * @return 影响行数
+     */
+    public int createUsers(List<User> users, BatchParam batchParam) {
+        if (users == null || users.isEmpty()) {
+            return 0;
+        }
+        ExecutorType executorType = batchParam.isUseBatchExecutor() ? ExecutorType.BATCH : ExecutorType.REUSE;
+        try (SqlSession sqlSession = SqlSessionFactoryUtil.openSession(executorType)) {
+            UserMapper mapper = sqlSession.getMapper(UserMapper.class);
+            int result = 0;
+            for (List<User> chunk : CollectionUtil.partition(users, batchParam.getChunkSize())) {
+                if (batchParam.isUseBatchExecutor()) {
+                    // BATCH执行器不支持多值INSERT回填ID，这里逐条加入JDBC批处理
+                    chunk.forEach(mapper::insert);
+                    if (batchParam.isFlushEachChunk()) {
+                        result += CollectionUtil.sumUpdateCounts(sqlSession.flushStatements());
+                    }
+                } else {
+                    result += mapper.insertBatch(chunk);
+                }
+            }
+            if (batchParam.isUseBatchExecutor()) {
+                result += CollectionUtil.sumUpdateCounts(sqlSession.flushStatements());
+            }
+            sqlSession.commit();
+            UnitOfWork.afterCompletion(USER_COUNT_CACHE::invalidate);
             return result;
         }
     }
@@ -73,7 +245,7 @@ public class UserService {
      * @return 影响行数
      */
     public int updateUser(User user) {
-        try (SqlSession sqlSession = SqlSessionFactoryUtil.getSqlSessionFactory().openSession()) {
+        try (SqlSession sqlSession = SqlSessionFactoryUtil.openSession()) {
             UserMapper mapper = sqlSession.getMapper(UserMapper.class);
             int result = mapper.update(user);
             sqlSession.commit();
@@ -87,10 +259,92 @@ public class UserService {
      * @return 影响行数
      */
     public int deleteUser(Long id) {
-        try (SqlSession sqlSession = SqlSessionFactoryUtil.getSqlSessionFactory().openSession()) {
+        try (SqlSession sqlSession = SqlSessionFactoryUtil.openSession()) {
             UserMapper mapper = sqlSession.getMapper(UserMapper.class);
             int result = mapper.deleteById(id);
             sqlSession.commit();
+            UnitOfWork.afterCompletion(USER_COUNT_CACHE::invalidate);
+            return result;
+        }
+    }
+
+    /**
+     * 批量更新用户（默认参数）
+     * @param users 用户列表
+     * @return 影响行数
+     */
+    public int updateUsers(List<User> users) {
+        return updateUsers(users, new BatchParam());
+    }
+
+    /**
+     * 批量更新用户：各用户更新的内容不同，使用BATCH执行器按JDBC批处理发送，所有分批一次提交
+     * @param users 用户列表
+     * @param batchParam 批量参数，chunkSize为每次刷新的语句数
+     * @return 影响行数
+     */
+    public int updateUsers(List<User> users, BatchParam batchParam) {
+        if (users == null || users.isEmpty()) {
+            return 0;
+        }
+        try (SqlSession sqlSession = SqlSessionFactoryUtil.openSession(ExecutorType.BATCH)) {
+            UserMapper mapper = sqlSession.getMapper(UserMapper.class);
+            int result = 0;
+            for (List<User> chunk : CollectionUtil.partition(users, batchParam.getChunkSize())) {
+                chunk.forEach(mapper::update);
+                if (batchParam.isFlushEachChunk()) {
+                    result += CollectionUtil.sumUpdateCounts(sqlSession.flushStatements());
+                }
+            }
+            result += CollectionUtil.sumUpdateCounts(sqlSession.flushStatements());
+            sqlSession.commit();
+            return result;
+        }
+    }
+
+    /**
+     * 批量删除用户（默认参数）
+     * @param ids 用户ID集合
+     * @return 影响行数
+     */
+    public int deleteUsers(Collection<Long> ids) {
+        return deleteUsers(ids, new BatchParam());
+    }
+
+    /**
+     * 批量删除用户：按chunkSize分批执行 IN (...) 删除，所有分批在同一个事务中提交
+     * @param ids 用户ID集合
+     * @param batchParam 批量参数，chunkSize为每条DELETE的ID个数
+     * @return 影响行数
+     */
+    public int deleteUsers(Collection<Long> ids, BatchParam batchParam) {
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+        try (SqlSession sqlSession = SqlSessionFactoryUtil.openSession()) {
+            UserMapper mapper = sqlSession.getMapper(UserMapper.class);
+            int result = 0;
+            for (List<Long> chunk : CollectionUtil.partition(new ArrayList<>(new LinkedHashSet<>(ids)),
+                    batchParam.getChunkSize())) {
+                result += mapper.deleteByIds(chunk);
+            }
+            sqlSession.commit();
+            UnitOfWork.afterCompletion(USER_COUNT_CACHE::invalidate);
+            return result;
+        }
+    }
+
+    /**
+     * 删除部门下的所有用户
+     * @param departmentId 部门ID
+     * @return 影响行数
+     */
+    public int deleteUsersByDepartmentId(Long departmentId) {
+        try (SqlSession sqlSession = SqlSessionFactoryUtil.openSession()) {
+            UserMapper mapper = sqlSession.getMapper(UserMapper.class);
+            int result = mapper.deleteByDepartmentId(departmentId);
+            sqlSession.commit();
+            UnitOfWork.afterCompletion(USER_COUNT_CACHE::invalidate);
             return result;
         }
     }
@@ -101,7 +355,7 @@ public class UserService {
      * @return 用户及其部门信息
      */
     public User getUserWithDepartment(Long id) {
-        try (SqlSession sqlSession = SqlSessionFactoryUtil.getSqlSessionFactory().openSession()) {
+        try (SqlSession sqlSession = SqlSessionFactoryUtil.openSession()) {
             UserMapper mapper = sqlSession.getMapper(UserMapper.class);
             return mapper.selectWithDepartment(id);
         }
@@ -112,7 +366,7 @@ public class UserService {
      * @return 用户列表及其部门信息
      */
     public List<User> getAllUsersWithDepartment() {
-        try (SqlSession sqlSession = SqlSessionFactoryUtil.getSqlSessionFactory().openSession()) {
+        try (SqlSession sqlSession = SqlSessionFactoryUtil.openSession()) {
             UserMapper mapper = sqlSession.getMapper(UserMapper.class);
             return mapper.selectAllWithDepartment();
         }
@@ -124,7 +378,7 @@ public class UserService {
      * @return 用户及其订单信息
      */
     public User getUserWithOrders(Long id) {
-        try (SqlSession sqlSession = SqlSessionFactoryUtil.getSqlSessionFactory().openSession()) {
+        try (SqlSession sqlSession = SqlSessionFactoryUtil.openSession()) {
             UserMapper mapper = sqlSession.getMapper(UserMapper.class);
             return mapper.selectWithOrders(id);
         }
@@ -135,21 +389,250 @@ public class UserService {
      * @return 用户列表及其订单信息
      */
     public List<User> getAllUsersWithOrders() {
-        try (SqlSession sqlSession = SqlSessionFactoryUtil.getSqlSessionFactory().openSession()) {
+        try (SqlSession sqlSession = SqlSessionFactoryUtil.openSession()) {
             UserMapper mapper = sqlSession.getMapper(UserMapper.class);
             return mapper.selectAllWithOrders();
         }
     }
 
+    /**
+     * 流式遍历所有用户及其订单，每个用户的订单组装完成后立即回调
+     * @param consumer 用户处理逻辑
+     */
+    public void forEachUserWithOrders(Consumer<User> consumer) {
+        try (SqlSession sqlSession = SqlSessionFactoryUtil.openSession()) {
+            UserMapper mapper = sqlSession.getMapper(UserMapper.class);
+            mapper.streamAllWithOrders(context -> consumer.accept(context.getResultObject()));
+        }
+    }
+
     /**
      * 根据ID查询用户及其部门和订单（完整关联）
      * @param id 用户ID
      * @return 用户及其完整关联信息
      */
     public User getUserWithDepartmentAndOrders(Long id) {
-        try (SqlSession sqlSession = SqlSessionFactoryUtil.getSqlSessionFactory().openSession()) {
+        try (SqlSession sqlSession = SqlSessionFactoryUtil.openSession()) {
             UserMapper mapper = sqlSession.getMapper(UserMapper.class);
             return mapper.selectWithDepartmentAndOrders(id);
         }
     }
+
+    /**
+     * 根据ID查询用户及其部门和订单，可选择查询方式
+     * JOIN 与 {@link #getUserWithDepartmentAndOrders(Long)} 相同；PARALLEL 在三个连接上同时查询用户、部门和订单后组装，
+     * 订单很多时避免每一行都重复传输用户和部门的列；工作单元中按JOIN查询，以便读到本事务中未提交的修改
+     * @param id 用户ID
+     * @param fetchMode 查询方式
+     * @return 用户及其完整关联信息
+     */
+    public User getUserWithDepartmentAndOrders(Long id, FetchMode fetchMode) {
+        if (fetchMode != FetchMode.PARALLEL || UnitOfWork.isActive()) {
+            return getUserWithDepartmentAndOrders(id);
+        }
+        return AsyncExecutor.join(fetchUserWithDepartmentAndOrders(id));
+    }
+
+    /**
+     * 用户、部门、订单三条查询各自在异步执行器上运行，全部完成后组装；
+     * 组装不占用执行器线程等待，异步调用方在执行器线程上使用时不会因线程耗尽而互相等待
+     */
+    private CompletableFuture<User> fetchUserWithDepartmentAndOrders(Long id) {
+        CompletableFuture<User> userFuture = getUserByIdAsync(id);
+        CompletableFuture<Department> departmentFuture = AsyncExecutor.supplyAsync(() -> {
+            try (SqlSession sqlSession = SqlSessionFactoryUtil.openSession()) {
+                return sqlSession.getMapper(DepartmentMapper.class).selectByUserId(id);
+            }
+        });
+        CompletableFuture<List<Order>> ordersFuture = AsyncExecutor.supplyAsync(() -> {
+            try (SqlSession sqlSession = SqlSessionFactoryUtil.openSession()) {
+                return sqlSession.getMapper(OrderMapper.class).selectByUserId(id);
+            }
+        });
+        return CompletableFuture.allOf(userFuture, departmentFuture, ordersFuture).thenApply(ignored -> {
+            User user = userFuture.join();
+            if (user == null) {
+                return null;
+            }
+            // 查询结果可能来自二级缓存，组装到副本上，不修改缓存中的对象
+            User result = new User(user.getId(), user.getName(), user.getEmail(), user.getAge(),
+                    user.getDepartmentId());
+            result.setDepartment(departmentFuture.join());
+            result.setOrders(new ArrayList<>(ordersFuture.join()));
+            return result;
+        });
+    }
+
+    /**
+     * 截掉多取的记录，复制子列表避免修改二级缓存中的结果
+     */
+    private static List<User> trimToPageSize(List<User> users, int pageSize) {
+        return users.size() > pageSize ? new ArrayList<>(users.subList(0, pageSize)) : users;
+    }
+
+    // ========== 异步方法：在 AsyncExecutor 上执行对应的同步方法，每个任务使用并关闭自己的SqlSession ==========
+
+    /**
+     * {@link #getUsersByPage} 的异步版本
+     */
+    public CompletableFuture<Page<User>> getUsersByPageAsync(PageParam pageParam) {
+        return AsyncExecutor.supplyAsync(() -> getUsersByPage(pageParam));
+    }
+
+    /**
+     * {@link #getUsersByCursor} 的异步版本
+     */
+    public CompletableFuture<Page<User>> getUsersByCursorAsync(PageParam pageParam) {
+        return AsyncExecutor.supplyAsync(() -> getUsersByCursor(pageParam));
+    }
+
+    /**
+     * {@link #getAllUsers} 的异步版本
+     */
+    public CompletableFuture<List<User>> getAllUsersAsync() {
+        return AsyncExecutor.supplyAsync(this::getAllUsers);
+    }
+
+    /**
+     * {@link #forEachUser} 的异步版本
+     */
+    public CompletableFuture<Void> forEachUserAsync(Consumer<User> consumer) {
+        return AsyncExecutor.runAsync(() -> forEachUser(consumer));
+    }
+
+    /**
+     * {@link #getUserById} 的异步版本
+     */
+    public CompletableFuture<User> getUserByIdAsync(Long id) {
+        return AsyncExecutor.supplyAsync(() -> getUserById(id));
+    }
+
+    /**
+     * {@link #getUsersByIds} 的异步版本
+     */
+    public CompletableFuture<List<User>> getUsersByIdsAsync(Collection<Long> ids) {
+        return AsyncExecutor.supplyAsync(() -> getUsersByIds(ids));
+    }
+
+    /**
+     * {@link #createUser} 的异步版本
+     */
+    public CompletableFuture<Integer> createUserAsync(User user) {
+        return AsyncExecutor.supplyAsync(() -> createUser(user));
+    }
+
+    /**
+     * {@link #createUsers} 的异步版本
+     */
+    public CompletableFuture<Integer> createUsersAsync(List<User> users) {
+        return AsyncExecutor.supplyAsync(() -> createUsers(users));
+    }
+
+    /**
+     * {@link #createUsers} 的异步版本
+     */
+    public CompletableFuture<Integer> createUsersAsync(List<User> users, BatchParam batchParam) {
+        return AsyncExecutor.supplyAsync(() -> createUsers(users, batchParam));
+    }
+
+    /**
+     * {@link #updateUser} 的异步版本
+     */
+    public CompletableFuture<Integer> updateUserAsync(User user) {
+        return AsyncExecutor.supplyAsync(() -> updateUser(user));
+    }
+
+    /**
+     * {@link #deleteUser} 的异步版本
+     */
+    public CompletableFuture<Integer> deleteUserAsync(Long id) {
+        return AsyncExecutor.supplyAsync(() -> deleteUser(id));
+    }
+
+    /**
+     * {@link #updateUsers} 的异步版本
+     */
+    public CompletableFuture<Integer> updateUsersAsync(List<User> users) {
+        return AsyncExecutor.supplyAsync(() -> updateUsers(users));
+    }
+
+    /**
+     * {@link #updateUsers} 的异步版本
+     */
+    public CompletableFuture<Integer> updateUsersAsync(List<User> users, BatchParam batchParam) {
+        return AsyncExecutor.supplyAsync(() -> updateUsers(users, batchParam));
+    }
+
+    /**
+     * {@link #deleteUsers} 的异步版本
+     */
+    public CompletableFuture<Integer> deleteUsersAsync(Collection<Long> ids) {
+        return AsyncExecutor.supplyAsync(() -> deleteUsers(ids));
+    }
+
+    /**
+     * {@link #deleteUsers} 的异步版本
+     */
+    public CompletableFuture<Integer> deleteUsersAsync(Collection<Long> ids, BatchParam batchParam) {
+        return AsyncExecutor.supplyAsync(() -> deleteUsers(ids, batchParam));
+    }
+
+    /**
+     * {@link #deleteUsersByDepartmentId} 的异步版本
+     */
+    public CompletableFuture<Integer> deleteUsersByDepartmentIdAsync(Long departmentId) {
+        return AsyncExecutor.supplyAsync(() -> deleteUsersByDepartmentId(departmentId));
+    }
+
+    /**
+     * {@link #getUserWithDepartment} 的异步版本
+     */
+    public CompletableFuture<User> getUserWithDepartmentAsync(Long id) {
+        return AsyncExecutor.supplyAsync(() -> getUserWithDepartment(id));
+    }
+
+    /**
+     * {@link #getAllUsersWithDepartment} 的异步版本
+     */
+    public CompletableFuture<List<User>> getAllUsersWithDepartmentAsync() {
+        return AsyncExecutor.supplyAsync(this::getAllUsersWithDepartment);
+    }
+
+    /**
+     * {@link #getUserWithOrders} 的异步版本
+     */
+    public CompletableFuture<User> getUserWithOrdersAsync(Long id) {
+        return AsyncExecutor.supplyAsync(() -> getUserWithOrders(id));
+    }
+
+    /**
+     * {@link #getAllUsersWithOrders} 的异步版本
+     */
+    public CompletableFuture<List<User>> getAllUsersWithOrdersAsync() {
+        return AsyncExecutor.supplyAsync(this::getAllUsersWithOrders);
+    }
+
+    /**
+     * {@link #forEachUserWithOrders} 的异步版本
+     */
+    public CompletableFuture<Void> forEachUserWithOrdersAsync(Consumer<User> consumer) {
+        return AsyncExecutor.runAsync(() -> forEachUserWithOrders(consumer));
+    }
+
+    /**
+     * {@link #getUserWithDepartmentAndOrders} 的异步版本
+     */
+    public CompletableFuture<User> getUserWithDepartmentAndOrdersAsync(Long id) {
+        return AsyncExecutor.supplyAsync(() -> getUserWithDepartmentAndOrders(id));
+    }
+
+    /**
+     * {@link #getUserWithDepartmentAndOrders(Long, FetchMode)} 的异步版本
+     */
+    public CompletableFuture<User> getUserWithDepartmentAndOrdersAsync(Long id, FetchMode fetchMode) {
+        if (fetchMode == FetchMode.PARALLEL) {
+            return fetchUserWithDepartmentAndOrders(id);
+        }
+        return getUserWithDepartmentAndOrdersAsync(id);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,66 @@
+package com.example.demo.shard;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.ToIntFunction;
+
+/**
+ * 订单分片路由
+ * 按 user_id 取模选择分片，同一用户的订单都在同一个分片；订单ID由各分片的自增列生成，
+ * 步长为分片数、起始值为分片编号+1，因此 (id - 1) 对分片数取模即订单所在分片，按ID操作时不需要 user_id。
+ */
+public class ShardRouter {
+    private final int shardCount;
+
+    public ShardRouter(int shardCount) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("分片数必须大于0: " + shardCount);
+        }
+        this.shardCount = shardCount;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * 用户的订单所在分片
+     */
+    public int shardOfUser(Long userId) {
+        if (userId == null) {
+            throw new IllegalArgumentException("缺少 user_id，无法确定订单分片");
+        }
+        return (int) Math.floorMod(userId, (long) shardCount);
+    }
+
+    /**
+     * 订单ID所在分片
+     */
+    public int shardOfOrder(Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("缺少订单ID，无法确定订单分片");
+        }
+        return (int) Math.floorMod(id - 1, (long) shardCount);
+    }
+
+    /**
+     * 第shard个分片的自增列起始值，步长为分片数
+     */
+    public long firstIdOf(int shard) {
+        return shard + 1L;
+    }
+
+    /**
+     * 按分片分组，保持每组内的原有顺序
+     */
+    public <T> Map<Integer, List<T>> groupByShard(Collection<T> items, ToIntFunction<T> shardOf) {
+        Map<Integer, List<T>> groups = new TreeMap<>();
+        for (T item : items) {
+            groups.computeIfAbsent(shardOf.applyAsInt(item), shard -> new ArrayList<>()).add(item);
+        }
+        return groups;
+    }
+}
\ No newline at end of file
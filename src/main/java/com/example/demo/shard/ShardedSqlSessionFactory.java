@@ -0,0 +1,188 @@
+package com.example.demo.shard;
+
+import com.example.demo.utils.LazyMapperConfiguration;
+import com.example.demo.utils.SqlSessionFactoryUtil;
+import org.apache.ibatis.builder.xml.XMLConfigBuilder;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.defaults.DefaultSqlSessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * 订单分片的SqlSessionFactory集合
+ * 分片拓扑在 sharding.properties 中配置（系统属性同名配置优先），未配置分片时只有一个分片，即默认数据库。
+ * 每个分片使用同一份 mybatis-config.xml，只替换数据库地址和账号；环境ID改为 shard-N，
+ * 因为同名缓存在Ehcache中是同一个区域，环境ID是缓存键的一部分，可以避免不同分片的查询结果互相覆盖。
+ */
+public class ShardedSqlSessionFactory {
+    private static final Logger logger = LoggerFactory.getLogger(ShardedSqlSessionFactory.class);
+    private static final String CONFIG_RESOURCE = "mybatis-config.xml";
+    private static final String TOPOLOGY_RESOURCE = "sharding.properties";
+    private static final String SHARD_PREFIX = "shard.";
+
+    private final List<SqlSessionFactory> factories;
+    private final ShardRouter router;
+    private final ExecutorService executor;
+
+    public ShardedSqlSessionFactory(List<SqlSessionFactory> factories) {
+        this.factories = Collections.unmodifiableList(new ArrayList<>(factories));
+        this.router = new ShardRouter(this.factories.size());
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(this.factories.size(), runnable -> {
+            Thread thread = new Thread(runnable, "shard-query-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 按配置创建的全局实例，第一次使用时初始化
+     */
+    public static ShardedSqlSessionFactory getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * 按 sharding.properties 和系统属性创建：shard.0.url、shard.1.url ... 依次为各分片地址，
+     * shard.N.username/shard.N.password 为空时使用 jdbc.username/jdbc.password
+     */
+    public static ShardedSqlSessionFactory fromConfiguration() {
+        Properties topology = loadTopology();
+        List<SqlSessionFactory> factories = new ArrayList<>();
+        for (int shard = 0; ; shard++) {
+            String url = topology.getProperty(SHARD_PREFIX + shard + ".url", "").trim();
+            if (url.isEmpty()) {
+                break;
+            }
+            factories.add(buildShard(shard, url, topology));
+        }
+        if (factories.isEmpty()) {
+            logger.info("未配置订单分片，订单使用默认数据库");
+            factories.add(SqlSessionFactoryUtil.getSqlSessionFactory());
+        } else {
+            logger.info("订单分片数: {}", factories.size());
+        }
+        return new ShardedSqlSessionFactory(factories);
+    }
+
+    public ShardRouter getRouter() {
+        return router;
+    }
+
+    public int getShardCount() {
+        return factories.size();
+    }
+
+    public SqlSessionFactory getFactory(int shard) {
+        return factories.get(shard);
+    }
+
+    public SqlSession openSession(int shard) {
+        return factories.get(shard).openSession();
+    }
+
+    /**
+     * 在所有分片上并行执行task（参数为分片编号），按分片顺序返回结果；任一分片失败时取消其余分片并抛出该异常
+     */
+    public <T> List<T> scatter(IntFunction<T> task) {
+        if (factories.size() == 1) {
+            return Collections.singletonList(task.apply(0));
+        }
+        List<Future<T>> futures = new ArrayList<>(factories.size());
+        for (int shard = 0; shard < factories.size(); shard++) {
+            int target = shard;
+            futures.add(executor.submit(() -> task.apply(target)));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new PersistenceException("分片查询被中断", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new PersistenceException("分片查询失败，原因: " + e.getCause(), e.getCause());
+        }
+    }
+
+    /**
+     * 停止并行查询线程
+     */
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private static SqlSessionFactory buildShard(int shard, String url, Properties topology) {
+        Properties properties = new Properties();
+        properties.putAll(System.getProperties());
+        properties.setProperty("jdbc.url", url);
+        copyIfPresent(topology, SHARD_PREFIX + shard + ".username", properties, "jdbc.username");
+        copyIfPresent(topology, SHARD_PREFIX + shard + ".password", properties, "jdbc.password");
+        // 从库和多节点缓存失效广播只用于默认数据库
+        properties.setProperty("jdbc.replica.urls", "");
+        properties.setProperty("cache.invalidation.transport", "");
+        try (InputStream inputStream = Resources.getResourceAsStream(CONFIG_RESOURCE)) {
+            // 分片只使用订单映射器，其他映射器在用到时才加载
+            Configuration configuration = new XMLConfigBuilder(LazyMapperConfiguration.class, inputStream, null,
+                    properties).parse();
+            SqlSessionFactory factory = new DefaultSqlSessionFactory(configuration);
+            Environment environment = configuration.getEnvironment();
+            configuration.setEnvironment(new Environment("shard-" + shard, environment.getTransactionFactory(),
+                    environment.getDataSource()));
+            return factory;
+        } catch (IOException e) {
+            throw new PersistenceException("无法读取 " + CONFIG_RESOURCE + "，原因: " + e, e);
+        }
+    }
+
+    private static Properties loadTopology() {
+        Properties topology = new Properties();
+        try {
+            topology.putAll(Resources.getResourceAsProperties(TOPOLOGY_RESOURCE));
+        } catch (IOException e) {
+            logger.debug("未找到 {}，只使用系统属性", TOPOLOGY_RESOURCE);
+        }
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith(SHARD_PREFIX)) {
+                topology.setProperty(name, System.getProperty(name));
+            }
+        }
+        return topology;
+    }
+
+    private static void copyIfPresent(Properties source, String sourceName, Properties target, String targetName) {
+        String value = source.getProperty(sourceName, "").trim();
+        if (!value.isEmpty()) {
+            target.setProperty(targetName, value);
+        }
+    }
+
+    private static class Holder {
+        static final ShardedSqlSessionFactory INSTANCE = fromConfiguration();
+    }
+}
\ No newline at end of file
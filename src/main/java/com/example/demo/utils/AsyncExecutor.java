@@ -0,0 +1,208 @@
+package com.example.demo.utils;
+
+import com.example.demo.datasource.ReadWriteDataSource;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 服务层异步方法使用的执行器
+ * 同时执行的任务数有上限，默认等于连接池的最大活动连接数，超出的任务排队，避免大量线程阻塞在获取连接上；
+ * 排队任务超过 queueCapacity 时拒绝提交（RejectedExecutionException）。
+ * JDK 21及以上每个任务使用一个虚拟线程，由信号量限制并发；更低版本使用固定大小的守护线程池。
+ * 系统属性：async.maxConcurrency、async.queueCapacity（默认10000）、async.virtualThreads（默认true）；
+ * 也可以通过 setDefault 替换为其他 Executor。
+ */
+public class AsyncExecutor implements Executor {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncExecutor.class);
+    private static final String THREAD_PREFIX = "mybatis-async-";
+
+    private static volatile Executor defaultExecutor;
+
+    private final int maxConcurrency;
+    private final int queueCapacity;
+    private final boolean virtualThreads;
+    private final ExecutorService delegate;
+    // 虚拟线程模式下限制同时访问数据库的任务数，平台线程模式下由线程数限制
+    private final Semaphore permits;
+    private final AtomicInteger pending = new AtomicInteger();
+
+    public AsyncExecutor(int maxConcurrency, int queueCapacity, boolean preferVirtualThreads) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("最大并发数必须大于0: " + maxConcurrency);
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.queueCapacity = queueCapacity;
+        ExecutorService virtual = preferVirtualThreads ? newVirtualThreadExecutor() : null;
+        this.virtualThreads = virtual != null;
+        if (virtualThreads) {
+            this.delegate = virtual;
+            this.permits = new Semaphore(maxConcurrency);
+        } else {
+            AtomicInteger threadCount = new AtomicInteger();
+            ThreadFactory threadFactory = runnable -> {
+                Thread thread = new Thread(runnable, THREAD_PREFIX + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(queueCapacity), threadFactory);
+            pool.allowCoreThreadTimeOut(true);
+            this.delegate = pool;
+            this.permits = null;
+        }
+    }
+
+    /**
+     * 默认执行器，第一次使用时按系统属性和连接池大小创建
+     */
+    public static Executor getDefault() {
+        Executor executor = defaultExecutor;
+        if (executor == null) {
+            synchronized (AsyncExecutor.class) {
+                executor = defaultExecutor;
+                if (executor == null) {
+                    executor = fromSystemProperties();
+                    defaultExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * 替换默认执行器，之后提交的异步任务使用新的执行器
+     */
+    public static void setDefault(Executor executor) {
+        defaultExecutor = executor;
+    }
+
+    /**
+     * 在默认执行器上执行task，task中打开的SqlSession应在task内关闭
+     */
+    public static <T> CompletableFuture<T> supplyAsync(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, getDefault());
+    }
+
+    /**
+     * 在默认执行器上执行没有返回值的task
+     */
+    public static CompletableFuture<Void> runAsync(Runnable task) {
+        return CompletableFuture.runAsync(task, getDefault());
+    }
+
+    /**
+     * 等待future完成并返回结果，任务抛出的运行时异常原样抛出，不包装为CompletionException
+     */
+    public static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (!virtualThreads) {
+            delegate.execute(task);
+            return;
+        }
+        // 虚拟线程等待信号量的开销很小，但排队数量仍然要有上限
+        if (pending.incrementAndGet() > maxConcurrency + queueCapacity) {
+            pending.decrementAndGet();
+            throw new RejectedExecutionException("异步任务排队数超过 " + queueCapacity);
+        }
+        try {
+            delegate.execute(() -> {
+                try {
+                    permits.acquireUninterruptibly();
+                    try {
+                        task.run();
+                    } finally {
+                        permits.release();
+                    }
+                } finally {
+                    pending.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.decrementAndGet();
+            throw e;
+        }
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * 停止接收新任务
+     */
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    private static AsyncExecutor fromSystemProperties() {
+        int maxConcurrency = Integer.getInteger("async.maxConcurrency", connectionPoolSize());
+        int queueCapacity = Integer.getInteger("async.queueCapacity", 10_000);
+        boolean preferVirtualThreads = Boolean.parseBoolean(System.getProperty("async.virtualThreads", "true"));
+        AsyncExecutor executor = new AsyncExecutor(maxConcurrency, queueCapacity, preferVirtualThreads);
+        logger.info("异步执行器：最大并发 {}，{}", maxConcurrency, executor.isVirtualThreads() ? "虚拟线程" : "平台线程");
+        return executor;
+    }
+
+    /**
+     * 连接池的最大活动连接数，读写分离时以主库为准
+     */
+    private static int connectionPoolSize() {
+        DataSource dataSource = SqlSessionFactoryUtil.getSqlSessionFactory().getConfiguration()
+                .getEnvironment().getDataSource();
+        if (dataSource instanceof ReadWriteDataSource) {
+            dataSource = ((ReadWriteDataSource) dataSource).getPrimary();
+        }
+        if (dataSource instanceof PooledDataSource) {
+            return ((PooledDataSource) dataSource).getPoolMaximumActiveConnections();
+        }
+        return Runtime.getRuntime().availableProcessors() * 2;
+    }
+
+    /**
+     * 通过反射使用JDK 21的虚拟线程（项目按Java 8编译），不支持时返回null
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, THREAD_PREFIX, 1L);
+            ThreadFactory threadFactory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            Method newExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) newExecutor.invoke(null, threadFactory);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,71 @@
+package com.example.demo.utils;
+
+import com.example.demo.cache.NormalizedCache;
+import com.example.demo.plugin.PluginUtil;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.session.Configuration;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 批量按ID查询的缓存读取（cache-aside）：实体从语句所在命名空间的 {@link NormalizedCache} 中按主键读取，
+ * 未命中的主键交给loader一次查询后放回同一个缓存
+ * 实体条目与selectById等语句共用，由 TaggedCacheInvalidationInterceptor 在写操作时、提交后以及收到其他节点的广播时淘汰，
+ * 直接调用Mapper的写操作同样生效；容量和过期由命名空间的缓存实现（Ehcache）管理。
+ * 命名空间没有使用NormalizedCache或语句的结果不能规范化时每次都调用loader。
+ * 返回的是缓存中的共享对象，调用方不应修改。
+ */
+public final class BatchEntityLoader {
+    private BatchEntityLoader() {}
+
+    /**
+     * 返回主键到实体的映射，不存在的主键不在结果中
+     * @param statement 批量按ID查询的语句，决定使用哪个命名空间的缓存和resultMap
+     * @param ids 主键集合
+     * @param loader 查询未命中的主键，返回找到的实体
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> Map<K, V> getAll(Configuration configuration, String statement, Function<V, K> keyOf,
+                                          Collection<K> ids, Function<List<K>, List<V>> loader) {
+        MappedStatement ms = configuration.getMappedStatement(statement);
+        NormalizedCache cache = ms.getCache() == null ? null : NormalizedCache.unwrap(ms.getCache());
+        ResultMap resultMap = ms.getResultMaps().size() == 1 ? ms.getResultMaps().get(0) : null;
+        Map<K, V> result = new HashMap<>(ids.size() * 2);
+        if (cache == null || resultMap == null || resultMap.hasNestedResultMaps() || resultMap.hasNestedQueries()) {
+            loader.apply(new ArrayList<>(ids)).forEach(value -> result.put(keyOf.apply(value), value));
+            return result;
+        }
+        Map<Object, Object> cached = cache.getEntities(resultMap.getId(), ids);
+        List<K> misses = new ArrayList<>();
+        for (K id : ids) {
+            Object entity = cached.get(PluginUtil.normalizeKey(id));
+            if (entity != null) {
+                result.put(id, (V) entity);
+            } else {
+                misses.add(id);
+            }
+        }
+        if (misses.isEmpty()) {
+            return result;
+        }
+        // 加载期间如果发生淘汰，本次结果只返回不缓存
+        long evictionCount = cache.getEvictionCount();
+        Map<K, V> loaded = new HashMap<>(misses.size() * 2);
+        for (V value : loader.apply(misses)) {
+            K id = keyOf.apply(value);
+            result.put(id, value);
+            // 延迟加载代理等子类对象不能与其他语句共用
+            if (value.getClass() == resultMap.getType()) {
+                loaded.put(id, value);
+            }
+        }
+        cache.putEntities(resultMap.getId(), loaded, evictionCount);
+        return result;
+    }
+}
\ No newline at end of file
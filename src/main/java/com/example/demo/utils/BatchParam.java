@@ -0,0 +1,22 @@
+package com.example.demo.utils;
+
+import lombok.Data;
+
+@Data
+public class BatchParam {
+    private int chunkSize = 500;              // 每批行数：多值INSERT的VALUES行数，或BATCH模式下每次刷新的语句数
+    private boolean useBatchExecutor = false; // 是否使用BATCH执行器（JDBC批处理）代替多值INSERT
+    private boolean flushEachChunk = true;    // BATCH模式下是否每批刷新一次，false则在提交前统一刷新
+
+    public BatchParam() {}
+
+    public BatchParam(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public BatchParam(int chunkSize, boolean useBatchExecutor, boolean flushEachChunk) {
+        this.chunkSize = chunkSize;
+        this.useBatchExecutor = useBatchExecutor;
+        this.flushEachChunk = flushEachChunk;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.demo.utils;
+
+import org.apache.ibatis.executor.BatchResult;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+public class CollectionUtil {
+    private CollectionUtil() {}
+
+    /**
+     * 将列表按固定大小切分，最后一段可能不足size
+     */
+    public static <T> List<List<T>> partition(List<T> list, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("分段大小必须大于0: " + size);
+        }
+        List<List<T>> chunks = new ArrayList<>((list.size() + size - 1) / size);
+        for (int from = 0; from < list.size(); from += size) {
+            chunks.add(list.subList(from, Math.min(from + size, list.size())));
+        }
+        return chunks;
+    }
+
+    /**
+     * 汇总BATCH执行器刷新后的影响行数
+     * 驱动重写批量语句时可能返回SUCCESS_NO_INFO(-2)，此时按1行计算
+     */
+    public static int sumUpdateCounts(List<BatchResult> batchResults) {
+        int total = 0;
+        for (BatchResult batchResult : batchResults) {
+            for (int count : batchResult.getUpdateCounts()) {
+                total += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 合并多个已按comparator排序的列表（k路归并），结果整体有序
+     */
+    public static <T> List<T> mergeSorted(List<List<T>> sortedLists, Comparator<? super T> comparator) {
+        int total = 0;
+        List<Iterator<T>> iterators = new ArrayList<>(sortedLists.size());
+        for (List<T> list : sortedLists) {
+            total += list.size();
+            iterators.add(list.iterator());
+        }
+        List<T> merged = new ArrayList<>(total);
+        mergeSorted(iterators, comparator, merged::add);
+        return merged;
+    }
+
+    /**
+     * 逐个消费多个有序迭代器合并后的元素，每个迭代器同一时刻只读取一个元素，可用于合并多个游标
+     */
+    public static <T> void mergeSorted(List<? extends Iterator<T>> sortedIterators, Comparator<? super T> comparator,
+                                       Consumer<? super T> consumer) {
+        // 堆中保存每个迭代器的当前元素及其来源
+        PriorityQueue<Head<T>> heads = new PriorityQueue<>(Math.max(1, sortedIterators.size()),
+                (a, b) -> comparator.compare(a.value, b.value));
+        for (Iterator<T> iterator : sortedIterators) {
+            if (iterator.hasNext()) {
+                heads.add(new Head<>(iterator.next(), iterator));
+            }
+        }
+        while (!heads.isEmpty()) {
+            Head<T> head = heads.poll();
+            consumer.accept(head.value);
+            if (head.source.hasNext()) {
+                head.value = head.source.next();
+                heads.add(head);
+            }
+        }
+    }
+
+    private static final class Head<T> {
+        T value;
+        final Iterator<T> source;
+
+        Head(T value, Iterator<T> source) {
+            this.value = value;
+            this.source = source;
+        }
+    }
+}
\ No newline at end of file
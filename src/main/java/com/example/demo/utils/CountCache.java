@@ -0,0 +1,42 @@
+package com.example.demo.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 缓存总记录数，写操作后调用invalidate失效，TTL兜底其他途径的写入
+ */
+public class CountCache {
+    private final long ttlMillis;
+    private final AtomicLong version = new AtomicLong();
+    private volatile long count = -1;
+    private volatile long expiresAt;
+
+    public CountCache(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+
+    public long get(LongSupplier loader) {
+        long cached = count;
+        if (cached >= 0 && System.currentTimeMillis() < expiresAt) {
+            return cached;
+        }
+        // 加载期间如果发生失效，本次结果只返回不缓存
+        long loadVersion = version.get();
+        long loaded = loader.getAsLong();
+        synchronized (this) {
+            if (version.get() == loadVersion) {
+                count = loaded;
+                expiresAt = System.currentTimeMillis() + ttlMillis;
+            }
+        }
+        return loaded;
+    }
+
+    public void invalidate() {
+        synchronized (this) {
+            version.incrementAndGet();
+            count = -1;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.demo.utils;
+
+/**
+ * 分页总数统计策略
+ */
+public enum CountStrategy {
+    EXACT,      // 每次执行COUNT(*)
+    CACHED,     // 缓存COUNT(*)结果，插入和删除时失效
+    ESTIMATED,  // 使用information_schema中的表统计行数（近似值）
+    NONE;       // 不统计总数，多取一条判断是否有下一页
+
+    /**
+     * 总数是否精确，不精确时通过多取一条记录判断是否有下一页
+     */
+    public boolean isExact() {
+        return this == EXACT || this == CACHED;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.demo.utils;
+
+/**
+ * 关联对象的查询方式
+ * PARALLEL的各条查询在其他线程上使用各自的连接，看不到工作单元中未提交的修改，
+ * 调用线程还会占着工作单元的连接等待其他连接；因此在工作单元中按JOIN执行。
+ */
+public enum FetchMode {
+    JOIN,       // 一条LEFT JOIN查询，由结果映射去重组装；一对多的子记录多时每行都重复父对象和其他关联的列
+    PARALLEL    // 每个对象一条查询，在不同连接上并行执行后组装，不传输重复的列
+}
\ No newline at end of file
@@ -0,0 +1,34 @@
+package com.example.demo.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+public class JmxUtil {
+    private static final Logger logger = LoggerFactory.getLogger(JmxUtil.class);
+
+    private JmxUtil() {}
+
+    /**
+     * 注册MBean，同名MBean已存在时先注销；注册失败只记录日志，不影响业务
+     */
+    public static void register(String objectName, Object mbean) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(objectName);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(mbean, name);
+        } catch (Exception e) {
+            logger.warn("注册MBean失败: {}", objectName, e);
+        }
+    }
+
+    public static String quote(String value) {
+        return ObjectName.quote(value);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,175 @@
+package com.example.demo.utils;
+
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 延迟加载映射器的Configuration
+ * mybatis-config.xml 中以 <mapper class="..."/> 列出的映射器在启动时只登记，不解析XML；
+ * 第一次获取该命名空间的Mapper、语句或结果映射时才加载接口和同名XML。
+ * 加载过程中引用其他命名空间的结果映射时一并加载，互相引用的部分由MyBatis的未完成元素机制在加载结束时补全。
+ * 未加载的命名空间没有语句和缓存，getMappedStatementNames 等集合只包含已加载的映射器，需要全部时调用 {@link #loadAllMappers()}。
+ * 启动各阶段的耗时记录在 {@link StartupReport} 中。
+ */
+public class LazyMapperConfiguration extends Configuration {
+    private static final Logger logger = LoggerFactory.getLogger(LazyMapperConfiguration.class);
+
+    // 命名空间 -> 尚未加载的映射器接口
+    private final Map<String, Class<?>> unloadedMappers = new ConcurrentHashMap<>();
+    // 所有配置共用：映射器原本只在启动时单线程解析，解析中创建的缓存等组件不一定线程安全（如Ehcache按命名空间注册缓存），
+    // 分片的多个配置在各自线程上首次使用同一个映射器时也要依次加载
+    private static final Object LOAD_LOCK = new Object();
+    // 正在加载映射器的线程，其他线程在加载完成前等待
+    private volatile Thread loadingThread;
+    private StartupReport startupReport = new StartupReport();
+
+    public StartupReport getStartupReport() {
+        return startupReport;
+    }
+
+    public void setStartupReport(StartupReport startupReport) {
+        this.startupReport = startupReport;
+    }
+
+    /**
+     * 加载所有尚未加载的映射器
+     */
+    public void loadAllMappers() {
+        for (String namespace : new ArrayList<>(unloadedMappers.keySet())) {
+            ensureLoaded(namespace);
+        }
+    }
+
+    // 启动阶段按 XMLConfigBuilder 的解析顺序划分，以它调用的Configuration方法作为阶段的结束点：
+    // properties和settings的读取 -> setLogImpl；typeAliases没有回调，计入第一个插件（没有插件时计入应用设置）；
+    // 每个插件 -> addInterceptor；objectFactory等和settings的应用 -> setNullableOnForEach（settingsElement的最后一项）；
+    // environments -> setEnvironment
+
+    @Override
+    public void setLogImpl(Class<? extends Log> logImpl) {
+        super.setLogImpl(logImpl);
+        startupReport.mark("读取属性与设置项");
+    }
+
+    @Override
+    public void addInterceptor(Interceptor interceptor) {
+        super.addInterceptor(interceptor);
+        String name = interceptor.getClass().getSimpleName();
+        startupReport.mark(getInterceptors().size() == 1 ? "类型别名与插件 " + name : "插件 " + name);
+    }
+
+    @Override
+    public void setNullableOnForEach(boolean nullableOnForEach) {
+        super.setNullableOnForEach(nullableOnForEach);
+        startupReport.mark("应用设置");
+    }
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        super.setEnvironment(environment);
+        startupReport.mark("环境与数据源");
+    }
+
+    @Override
+    public <T> void addMapper(Class<T> type) {
+        unloadedMappers.put(type.getName(), type);
+    }
+
+    @Override
+    public boolean hasMapper(Class<?> type) {
+        return unloadedMappers.containsKey(type.getName()) || super.hasMapper(type);
+    }
+
+    @Override
+    public <T> T getMapper(Class<T> type, SqlSession sqlSession) {
+        ensureLoaded(type.getName());
+        return super.getMapper(type, sqlSession);
+    }
+
+    @Override
+    public MappedStatement getMappedStatement(String id, boolean validateIncompleteStatements) {
+        ensureLoaded(namespaceOf(id));
+        return super.getMappedStatement(id, validateIncompleteStatements);
+    }
+
+    @Override
+    public boolean hasStatement(String statementName, boolean validateIncompleteStatements) {
+        ensureLoaded(namespaceOf(statementName));
+        return super.hasStatement(statementName, validateIncompleteStatements);
+    }
+
+    @Override
+    public ResultMap getResultMap(String id) {
+        ensureLoaded(namespaceOf(id));
+        return super.getResultMap(id);
+    }
+
+    @Override
+    public boolean hasResultMap(String id) {
+        ensureLoaded(namespaceOf(id));
+        return super.hasResultMap(id);
+    }
+
+    /**
+     * 加载映射器时先持有LOAD_LOCK再锁定未完成元素的集合，这里按相同顺序加锁，避免与加载线程互相等待；
+     * 没有未完成元素时与原来一样直接返回
+     */
+    @Override
+    protected void buildAllStatements() {
+        if (getIncompleteResultMaps().isEmpty() && getIncompleteCacheRefs().isEmpty()
+                && getIncompleteStatements().isEmpty() && getIncompleteMethods().isEmpty()) {
+            return;
+        }
+        synchronized (LOAD_LOCK) {
+            super.buildAllStatements();
+        }
+    }
+
+    private void ensureLoaded(String namespace) {
+        // 先检查命名空间再检查加载线程：加载线程在移除命名空间之前设置，看到已移除时一定能看到正在加载
+        boolean loaded = namespace == null ? unloadedMappers.isEmpty() : !unloadedMappers.containsKey(namespace);
+        if (loaded && loadingThread == null) {
+            return;
+        }
+        if (namespace == null) {
+            // 不带命名空间的短名称可能属于任一映射器
+            synchronized (LOAD_LOCK) {
+                loadAllMappers();
+            }
+            return;
+        }
+        synchronized (LOAD_LOCK) {
+            Thread previous = loadingThread;
+            loadingThread = Thread.currentThread();
+            try {
+                // 同一线程嵌套加载时，正在加载的命名空间已经移除，直接返回
+                Class<?> type = unloadedMappers.remove(namespace);
+                if (type != null) {
+                    long start = System.nanoTime();
+                    super.addMapper(type);
+                    long elapsed = System.nanoTime() - start;
+                    startupReport.add("加载映射器 " + type.getSimpleName(), elapsed);
+                    logger.info("加载映射器 {}，耗时 {} ms", type.getName(), elapsed / 1_000_000);
+                }
+            } finally {
+                loadingThread = previous;
+            }
+        }
+    }
+
+    private static String namespaceOf(String id) {
+        int index = id.lastIndexOf('.');
+        return index < 0 ? null : id.substring(0, index);
+    }
+}
\ No newline at end of file
@@ -6,12 +6,13 @@ import java.util.List;
 @Data
 public class Page<T> {
     private List<T> data;      // 分页数据
-    private long total;         // 总记录数
+    private long total;         // 总记录数，游标分页或不统计总数时为-1
     private int pageNum;        // 当前页码
     private int pageSize;       // 每页大小
-    private int totalPages;     // 总页数
+    private int totalPages;     // 总页数，游标分页或不统计总数时为-1
     private boolean hasNext;    // 是否有下一页
     private boolean hasPrevious; // 是否有上一页
+    private String nextCursor;  // 游标分页：下一页的游标，没有下一页时为null
 
     public Page(List<T> data, long total, int pageNum, int pageSize) {
         this.data = data;
@@ -22,4 +23,30 @@ public class Page<T> {
         this.hasNext = pageNum < totalPages;
         this.hasPrevious = pageNum > 1;
     }
-}
\ No newline at end of file
+
+    /**
+     * 不统计总数的分页结果，是否有下一页由多取的一条记录决定
+     */
+    public Page(List<T> data, int pageNum, int pageSize, boolean hasNext) {
+        this.data = data;
+        this.total = -1;
+        this.pageNum = pageNum;
+        this.pageSize = pageSize;
+        this.totalPages = -1;
+        this.hasNext = hasNext;
+        this.hasPrevious = pageNum > 1;
+    }
+
+    /**
+     * 游标分页结果，不统计总数
+     */
+    public Page(List<T> data, int pageSize, boolean hasPrevious, String nextCursor) {
+        this.data = data;
+        this.total = -1;
+        this.pageSize = pageSize;
+        this.totalPages = -1;
+        this.hasNext = nextCursor != null;
+        this.hasPrevious = hasPrevious;
+        this.nextCursor = nextCursor;
+    }
+}
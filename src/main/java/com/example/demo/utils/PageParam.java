@@ -2,10 +2,17 @@ package com.example.demo.utils;
 
 import lombok.Data;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
 @Data
 public class PageParam {
+    private static final String CURSOR_PREFIX = "id:";
+
     private int pageNum = 1;    // 当前页码，默认为1
     private int pageSize = 10;   // 每页大小，默认为10
+    private Long lastId;         // 游标分页：上一页最后一条记录的ID，为null表示第一页
+    private CountStrategy countStrategy = CountStrategy.EXACT; // 总数统计策略，默认精确统计
 
     public PageParam() {}
 
@@ -14,7 +21,71 @@ public class PageParam {
         this.pageSize = pageSize;
     }
 
+    public PageParam(int pageNum, int pageSize, CountStrategy countStrategy) {
+        this.pageNum = pageNum;
+        this.pageSize = pageSize;
+        this.countStrategy = countStrategy;
+    }
+
     public int getOffset() {
         return (pageNum - 1) * pageSize;
     }
-}
\ No newline at end of file
+
+    /**
+     * 多取一条记录，用于判断是否还有下一页
+     */
+    public int getFetchSize() {
+        return pageSize + 1;
+    }
+
+    /**
+     * 偏移分页实际查询的行数，总数不精确时多取一条判断是否有下一页
+     */
+    public int getLimit() {
+        return countStrategy.isExact() ? pageSize : getFetchSize();
+    }
+
+    /**
+     * 使用上一页返回的游标定位，游标为空表示从第一页开始
+     */
+    public void setCursor(String cursor) {
+        this.lastId = decodeCursor(cursor);
+    }
+
+    /**
+     * 游标分页参数
+     * @param cursor 上一页返回的游标，第一页传null
+     * @param pageSize 每页大小
+     */
+    public static PageParam ofCursor(String cursor, int pageSize) {
+        PageParam pageParam = new PageParam(1, pageSize);
+        pageParam.setCursor(cursor);
+        return pageParam;
+    }
+
+    /**
+     * 把最后一条记录的ID编码为不透明的游标字符串
+     */
+    public static String encodeCursor(Long lastId) {
+        byte[] bytes = (CURSOR_PREFIX + lastId).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * 解析游标字符串，格式不正确时抛出IllegalArgumentException
+     */
+    public static Long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        if (!decoded.startsWith(CURSOR_PREFIX)) {
+            throw new IllegalArgumentException("无效的分页游标: " + cursor);
+        }
+        try {
+            return Long.valueOf(decoded.substring(CURSOR_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("无效的分页游标: " + cursor, e);
+        }
+    }
+}
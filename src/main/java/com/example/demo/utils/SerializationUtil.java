@@ -0,0 +1,53 @@
+package com.example.demo.utils;
+
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.io.Resources;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+
+public class SerializationUtil {
+
+    private SerializationUtil() {}
+
+    /**
+     * 使用Java序列化把对象转为字节数组，对象图中的类必须实现Serializable
+     */
+    public static byte[] serialize(Object value) {
+        try (ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+             ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new CacheException("序列化缓存对象失败: " + e, e);
+        }
+    }
+
+    /**
+     * 反序列化，类通过MyBatis的类加载器查找（与SerializedCache一致）
+     */
+    public static Object deserialize(byte[] data) {
+        try (ObjectInputStream in = new ResourcesObjectInputStream(new ByteArrayInputStream(data))) {
+            return in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new CacheException("反序列化缓存对象失败: " + e, e);
+        }
+    }
+
+    private static class ResourcesObjectInputStream extends ObjectInputStream {
+        ResourcesObjectInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws ClassNotFoundException {
+            return Resources.classForName(desc.getName());
+        }
+    }
+}
\ No newline at end of file
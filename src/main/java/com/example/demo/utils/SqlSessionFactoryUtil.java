@@ -1,19 +1,42 @@
 package com.example.demo.utils;
 
+import org.apache.ibatis.builder.xml.XMLConfigBuilder;
 import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
-import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.session.defaults.DefaultSqlSessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.io.IOException;
 import java.io.InputStream;
 
 public class SqlSessionFactoryUtil {
+    private static final Logger logger = LoggerFactory.getLogger(SqlSessionFactoryUtil.class);
     private static SqlSessionFactory sqlSessionFactory;
+    private static StartupReport startupReport;
     private SqlSessionFactoryUtil() {}
     static {
-        try {
-            String resource = "mybatis-config.xml";
-            InputStream inputStream = Resources.getResourceAsStream(resource);
-            sqlSessionFactory = new SqlSessionFactoryBuilder().build(inputStream);
+        String resource = "mybatis-config.xml";
+        StartupReport report = new StartupReport();
+        try (InputStream inputStream = Resources.getResourceAsStream(resource)) {
+            // 系统属性（如 -Djdbc.url=...）覆盖配置文件中的默认值；映射器在首次使用时加载（见 LazyMapperConfiguration）
+            XMLConfigBuilder builder = new XMLConfigBuilder(LazyMapperConfiguration.class, inputStream, null, System.getProperties());
+            LazyMapperConfiguration configuration = (LazyMapperConfiguration) builder.getConfiguration();
+            report.mark("读取 " + resource);
+            configuration.setStartupReport(report);
+            builder.parse();
+            report.mark("类型处理器与映射器登记");
+            // -Dmapper.lazy=false 启动时加载全部映射器，映射文件有错误时启动即失败
+            if (!Boolean.parseBoolean(System.getProperty("mapper.lazy", "true"))) {
+                configuration.loadAllMappers();
+                report.mark("加载全部映射器");
+            }
+            sqlSessionFactory = new DefaultSqlSessionFactory(configuration);
+            report.mark("创建SqlSessionFactory");
+            startupReport = report;
+            logger.info("MyBatis初始化完成，耗时 {} ms：{}", report.getStartupMillis(), report);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -22,4 +45,25 @@ public class SqlSessionFactoryUtil {
     public static SqlSessionFactory getSqlSessionFactory() {
         return sqlSessionFactory;
     }
+
+    /**
+     * 初始化各阶段的耗时，包括之后延迟加载的映射器
+     */
+    public static StartupReport getStartupReport() {
+        return startupReport;
+    }
+
+    /**
+     * 打开会话，当前线程在工作单元中时返回工作单元的会话（见 {@link UnitOfWork}）
+     */
+    public static SqlSession openSession() {
+        return UnitOfWork.openSession(sqlSessionFactory);
+    }
+
+    /**
+     * 打开指定执行器类型的会话，当前线程在工作单元中时使用工作单元的连接和事务
+     */
+    public static SqlSession openSession(ExecutorType executorType) {
+        return UnitOfWork.openSession(sqlSessionFactory, executorType);
+    }
 }
\ No newline at end of file
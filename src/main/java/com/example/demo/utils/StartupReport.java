@@ -0,0 +1,50 @@
+package com.example.demo.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MyBatis初始化耗时报告
+ * 启动过程按顺序调用 {@link #mark(String)}，每个阶段的耗时为距上一次mark的时间；
+ * 映射器延迟加载发生在启动之后，用 {@link #add(String, long)} 单独记录。
+ */
+public class StartupReport {
+    private final List<String> phases = new ArrayList<>();
+    private final List<Long> elapsedNanos = new ArrayList<>();
+    private long lastMark = System.nanoTime();
+    private long startupNanos;
+
+    /**
+     * 结束一个启动阶段
+     */
+    public synchronized void mark(String phase) {
+        long now = System.nanoTime();
+        add(phase, now - lastMark);
+        startupNanos += now - lastMark;
+        lastMark = now;
+    }
+
+    /**
+     * 记录不在启动顺序中的阶段
+     */
+    public synchronized void add(String phase, long nanos) {
+        phases.add(phase);
+        elapsedNanos.add(nanos);
+    }
+
+    /**
+     * 启动阶段（mark记录的部分）的总耗时
+     */
+    public synchronized long getStartupMillis() {
+        return startupNanos / 1_000_000;
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < phases.size(); i++) {
+            builder.append(String.format("%n  %8.1f ms  %s", elapsedNanos.get(i) / 1e6, phases.get(i)));
+        }
+        return builder.toString();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,355 @@
+package com.example.demo.utils;
+
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 绑定到当前线程的工作单元，期间服务层方法共用一个SqlSession、一个连接和一个事务
+ * <pre>
+ * try (UnitOfWork unitOfWork = UnitOfWork.begin()) {
+ *     userService.createUser(user);
+ *     orderService.createOrder(order);
+ *     unitOfWork.commit();
+ * }   // 未提交时关闭即回滚
+ * </pre>
+ * 服务层通过 {@link #openSession(SqlSessionFactory)} 获取会话：没有工作单元时打开新会话，与原来相同；
+ * 有工作单元时返回参与者会话，其 commit 只执行批处理中的语句、close 不关闭，由最外层工作单元统一提交或回滚。
+ * 执行器类型不同的会话（如批量插入的BATCH）在同一个连接上打开，仍在同一个事务中。
+ * 嵌套调用 begin 加入外层工作单元，内层回滚或未提交就关闭时整个工作单元只能回滚。
+ * 异步方法在其他线程执行，不加入调用线程的工作单元；每个分片库各用一个连接，分片之间不是原子提交。
+ */
+public class UnitOfWork implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(UnitOfWork.class);
+    private static final ThreadLocal<UnitOfWork> CURRENT = new ThreadLocal<>();
+
+    private final Context context;
+    private final UnitOfWork outer;
+    private boolean completed;
+    private boolean closed;
+
+    private UnitOfWork(Context context, UnitOfWork outer) {
+        this.context = context;
+        this.outer = outer;
+    }
+
+    /**
+     * 开始工作单元，当前线程已有工作单元时加入它
+     */
+    public static UnitOfWork begin() {
+        UnitOfWork current = CURRENT.get();
+        UnitOfWork unitOfWork = new UnitOfWork(current == null ? new Context() : current.context, current);
+        CURRENT.set(unitOfWork);
+        return unitOfWork;
+    }
+
+    /**
+     * 当前线程是否在工作单元中
+     */
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * 打开默认执行器类型的会话，使用方式与 factory.openSession() 相同（try-with-resources关闭）
+     */
+    public static SqlSession openSession(SqlSessionFactory factory) {
+        return openSession(factory, factory.getConfiguration().getDefaultExecutorType());
+    }
+
+    /**
+     * 打开指定执行器类型的会话，有工作单元时加入工作单元
+     */
+    public static SqlSession openSession(SqlSessionFactory factory, ExecutorType executorType) {
+        UnitOfWork current = CURRENT.get();
+        if (current == null) {
+            return factory.openSession(executorType);
+        }
+        return current.context.participant(factory, executorType);
+    }
+
+    /**
+     * 工作单元结束（提交或回滚）后执行action，例如使计数缓存失效；没有工作单元时立即执行
+     */
+    public static void afterCompletion(Runnable action) {
+        UnitOfWork current = CURRENT.get();
+        if (current == null) {
+            action.run();
+        } else {
+            current.context.completionActions.add(action);
+        }
+    }
+
+    /**
+     * 提交：最外层提交事务，内层只标记完成
+     */
+    public void commit() {
+        checkOpen();
+        completed = true;
+        if (outer != null) {
+            return;
+        }
+        if (context.rollbackOnly) {
+            context.rollback();
+            throw new PersistenceException("工作单元已被内层标记为回滚，事务已回滚");
+        }
+        context.commit();
+    }
+
+    /**
+     * 回滚：最外层回滚事务，内层把整个工作单元标记为只能回滚
+     */
+    public void rollback() {
+        checkOpen();
+        completed = true;
+        context.rollbackOnly = true;
+        if (outer == null) {
+            context.rollback();
+        }
+    }
+
+    /**
+     * 结束工作单元，未提交或回滚时回滚；最外层关闭所有会话并归还连接
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        if (CURRENT.get() != this) {
+            throw new IllegalStateException("工作单元需要在开始它的线程上按相反顺序关闭");
+        }
+        closed = true;
+        try {
+            if (!completed) {
+                rollback();
+            }
+        } finally {
+            if (outer == null) {
+                CURRENT.remove();
+                context.close();
+            } else {
+                CURRENT.set(outer);
+            }
+        }
+    }
+
+    private void checkOpen() {
+        if (CURRENT.get() != this) {
+            throw new IllegalStateException("工作单元不是当前线程最内层的工作单元");
+        }
+        if (completed) {
+            throw new IllegalStateException("工作单元已经提交或回滚");
+        }
+    }
+
+    /**
+     * 一个工作单元及其嵌套工作单元共享的会话
+     */
+    private static class Context {
+        private final Map<SqlSessionFactory, Sessions> sessions = new IdentityHashMap<>();
+        private final List<Runnable> completionActions = new ArrayList<>();
+        private boolean rollbackOnly;
+        private boolean finished;
+
+        SqlSession participant(SqlSessionFactory factory, ExecutorType executorType) {
+            if (finished) {
+                throw new IllegalStateException("工作单元已经提交或回滚");
+            }
+            Sessions factorySessions = sessions.computeIfAbsent(factory, Sessions::new);
+            return participantProxy(factorySessions.get(executorType), this);
+        }
+
+        void commit() {
+            finish(true);
+        }
+
+        void rollback() {
+            finish(false);
+        }
+
+        private void finish(boolean commit) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            try {
+                if (commit) {
+                    commitAll();
+                } else {
+                    sessions.values().forEach(Sessions::rollback);
+                }
+            } finally {
+                for (Runnable action : completionActions) {
+                    try {
+                        action.run();
+                    } catch (RuntimeException e) {
+                        logger.warn("工作单元结束后的回调执行失败", e);
+                    }
+                }
+            }
+        }
+
+        /**
+         * 提交失败时回滚所有会话，否则关闭会话时恢复自动提交会把未提交的修改提交掉
+         */
+        private void commitAll() {
+            try {
+                for (Sessions factorySessions : sessions.values()) {
+                    factorySessions.commit();
+                }
+            } catch (RuntimeException e) {
+                for (Sessions factorySessions : sessions.values()) {
+                    try {
+                        factorySessions.rollback();
+                    } catch (RuntimeException rollbackError) {
+                        e.addSuppressed(rollbackError);
+                    }
+                }
+                throw e;
+            }
+        }
+
+        void clearLocalCaches() {
+            sessions.values().forEach(Sessions::clearCache);
+        }
+
+        void close() {
+            sessions.values().forEach(Sessions::close);
+        }
+    }
+
+    /**
+     * 同一个SqlSessionFactory的会话：主会话持有连接和事务，其他执行器类型的会话在主会话的连接上打开
+     */
+    private static class Sessions {
+        private final SqlSessionFactory factory;
+        private final ExecutorType primaryType;
+        private SqlSession primary;
+        private final Map<ExecutorType, SqlSession> secondaries = new EnumMap<>(ExecutorType.class);
+
+        Sessions(SqlSessionFactory factory) {
+            this.factory = factory;
+            this.primaryType = factory.getConfiguration().getDefaultExecutorType();
+        }
+
+        SqlSession get(ExecutorType executorType) {
+            if (primary == null) {
+                primary = factory.openSession(primaryType);
+            }
+            if (executorType == primaryType) {
+                return primary;
+            }
+            return secondaries.computeIfAbsent(executorType, type ->
+                    factory.openSession(type, sharedConnection(primary.getConnection())));
+        }
+
+        /**
+         * 先执行其他会话中尚未发送的批处理，再提交主会话的事务；
+         * 其他会话随后提交，只用于写入二级缓存和执行插件的提交后处理，连接上的提交被忽略
+         */
+        void commit() {
+            if (primary == null) {
+                return;
+            }
+            for (SqlSession secondary : secondaries.values()) {
+                secondary.flushStatements();
+            }
+            primary.commit(true);
+            for (SqlSession secondary : secondaries.values()) {
+                secondary.commit(true);
+            }
+        }
+
+        void rollback() {
+            if (primary == null) {
+                return;
+            }
+            for (SqlSession secondary : secondaries.values()) {
+                secondary.rollback(true);
+            }
+            primary.rollback(true);
+        }
+
+        void clearCache() {
+            if (primary != null) {
+                primary.clearCache();
+            }
+            secondaries.values().forEach(SqlSession::clearCache);
+        }
+
+        void close() {
+            for (SqlSession secondary : secondaries.values()) {
+                secondary.close();
+            }
+            if (primary != null) {
+                primary.close();
+            }
+        }
+    }
+
+    /**
+     * 服务层拿到的会话：commit只执行批处理语句并清空一级缓存，rollback标记工作单元只能回滚，close不关闭
+     */
+    private static SqlSession participantProxy(SqlSession session, Context context) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "close":
+                    return null;
+                case "commit":
+                    // 写入可能来自同一连接上的其他会话，清空所有会话的一级缓存
+                    session.flushStatements();
+                    context.clearLocalCaches();
+                    return null;
+                case "rollback":
+                    context.rollbackOnly = true;
+                    return null;
+                default:
+                    return invoke(session, method, args);
+            }
+        };
+        return (SqlSession) Proxy.newProxyInstance(SqlSession.class.getClassLoader(),
+                new Class<?>[]{SqlSession.class}, handler);
+    }
+
+    /**
+     * 其他执行器类型的会话使用的连接：事务和连接的生命周期由主会话管理，这里的提交、回滚、关闭和自动提交设置都被忽略
+     */
+    private static Connection sharedConnection(Connection connection) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "close":
+                case "commit":
+                case "rollback":
+                case "setAutoCommit":
+                    return null;
+                default:
+                    return invoke(connection, method, args);
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
\ No newline at end of file